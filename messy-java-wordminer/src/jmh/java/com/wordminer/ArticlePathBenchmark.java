@@ -0,0 +1,113 @@
+package com.wordminer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import, report and reading stages on pre-annotated sample articles, each on
+ * its own and end to end. NLP is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticlePathBenchmark {
+
+    @Param({"a1.txt", "a2.txt"})
+    String article;
+
+    String content;
+    ContentBlocks blocks;
+    ArticleAnalysis analysis;
+    byte[] analysisBlob;
+    Map<String, DictEntry> dictionary;
+    ArticleImporter importer;
+    HighlightedDocument highlighted;
+    String mostFrequentLemma;
+    Connection connection;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        content = Fixtures.article(article);
+        blocks = ContentBlocks.read(Fixtures.DATA.resolve("articles").resolve(article));
+        analysis = Fixtures.analysis(article);
+        analysisBlob = analysis.toBytes();
+        dictionary = Fixtures.dictionary();
+        Fixtures.userWords(analysis);
+        importer = new ArticleImporter(null, dictionary, 0, null);
+        highlighted = HighlightedDocument.build(content, analysis);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < analysis.size; i++) {
+            if (Tokens.isWord(analysis.words[i])) counts.merge(analysis.lemmas[i], 1, Integer::sum);
+        }
+        mostFrequentLemma = counts.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
+    }
+
+    @Setup(Level.Iteration)
+    public void openDatabase() throws Exception {
+        connection = Fixtures.freshDatabase("articles-bench.db");
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeDatabase() throws Exception {
+        Database.close(connection);
+    }
+
+    @Benchmark
+    public ArticleImporter.Result importStats() {
+        return importer.computeStats(article, analysis);
+    }
+
+    @Benchmark
+    public ArticleAnalysis decodeAnalysis() {
+        return ArticleAnalysis.fromBytes(analysisBlob, analysis.stamp);
+    }
+
+    @Benchmark
+    public VocabularyReport report() {
+        return VocabularyReport.compute(analysis);
+    }
+
+    @Benchmark
+    public HighlightedDocument buildDocument() {
+        return HighlightedDocument.build(content, analysis);
+    }
+
+    @Benchmark
+    public HighlightedDocument restyleMostFrequentLemma() {
+        highlighted.restyle(mostFrequentLemma);
+        return highlighted;
+    }
+
+    /**
+     * Stats, insert of article blocks + analysis blob, reload of both, report and document build.
+     */
+    @Benchmark
+    public HighlightedDocument endToEnd() throws Exception {
+        ArticleImporter.Pending pending = new ArticleImporter.Pending();
+        pending.file = new File(article);
+        pending.content = blocks;
+        pending.hash = blocks.hash();
+        pending.analysis = analysis;
+        pending.result = importer.computeStats(article, analysis);
+
+        connection.setAutoCommit(false);
+        importer.insertArticles(connection, List.of(pending));
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        ArticleAnalysis stored = ArticleAnalysis.load(connection, pending.result.articleId, analysis.stamp);
+        ArticleText text = ArticleText.load(connection, pending.result.articleId);
+        VocabularyReport.compute(stored);
+        return HighlightedDocument.build(text, stored, 0, text.length(), 0, stored.size);
+    }
+}
@@ -0,0 +1,88 @@
+package com.wordminer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dictionary startup stages on data/dictionary: first-run JSON import, snapshot
+ * build, and the warm-start snapshot load.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DictionaryLoadBenchmark {
+
+    /**
+     * Empty database for every invocation of the cold import
+     */
+    @State(Scope.Thread)
+    public static class ColdDatabase {
+        Connection connection;
+
+        @Setup(Level.Invocation)
+        public void setup() throws Exception {
+            connection = Fixtures.freshDatabase("cold-dictionary.db");
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws Exception {
+            Database.close(connection);
+        }
+    }
+
+    /**
+     * Imported database; the snapshot file is removed before each invocation that rebuilds it
+     */
+    @State(Scope.Thread)
+    public static class WarmDatabase {
+        Connection connection;
+        Path snapshot = Fixtures.CACHE.resolve("warm-dictionary.snapshot");
+        DictionaryLoader loader;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Fixtures.dictionary();
+            connection = DriverManager.getConnection("jdbc:sqlite:" + Fixtures.CACHE.resolve("dictionary.db"));
+            loader = new DictionaryLoader(connection, Fixtures.DATA.resolve("dictionary"), snapshot, null);
+            loader.openSnapshot();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            Database.close(connection);
+        }
+    }
+
+    @Benchmark
+    public Connection importLevelFiles(ColdDatabase db) throws Exception {
+        new DictionaryLoader(db.connection, Fixtures.DATA.resolve("dictionary"), Fixtures.CACHE.resolve("cold-dictionary.snapshot"), null)
+            .importMissingLevels();
+        return db.connection;
+    }
+
+    @Benchmark
+    public Path buildSnapshot(WarmDatabase db) throws Exception {
+        Files.deleteIfExists(db.snapshot);
+        db.loader.buildSnapshot(db.loader.signature());
+        return db.snapshot;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Map<String, DictEntry> loadSnapshot(WarmDatabase db) throws Exception {
+        Map<String, DictEntry> dictionary = new HashMap<>();
+        DictionaryLoader.fill(db.loader.openSnapshot(), dictionary);
+        return dictionary;
+    }
+}
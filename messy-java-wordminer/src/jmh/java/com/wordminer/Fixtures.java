@@ -0,0 +1,117 @@
+package com.wordminer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Benchmark fixtures built from the bundled data files.
+ * Expensive ones (CoreNLP annotation, dictionary import) are cached under target/bench-fixtures.
+ */
+final class Fixtures {
+    static final Path DATA = Paths.get("data");
+    static final Path CACHE = Paths.get("target", "bench-fixtures");
+
+    private static Lemmatizer lemmatizer;
+
+    private Fixtures() {}
+
+    static String article(String name) throws IOException {
+        return Files.readString(DATA.resolve("articles").resolve(name));
+    }
+
+    /**
+     * Pre-annotated article; CoreNLP runs only when the cache is missing or stale.
+     */
+    static ArticleAnalysis analysis(String name) throws IOException {
+        String stamp = CoreNlpLemmatizer.STAMP;
+        Path cached = CACHE.resolve(name + "." + Integer.toHexString(stamp.hashCode()) + ".analysis");
+        if (Files.exists(cached)) {
+            return ArticleAnalysis.fromBytes(Files.readAllBytes(cached), stamp);
+        }
+        if (lemmatizer == null) {
+            lemmatizer = new CoreNlpLemmatizer();
+        }
+        ArticleAnalysis analysis = lemmatizer.analyze(article(name));
+        Files.createDirectories(CACHE);
+        Files.write(cached, analysis.toBytes());
+        return analysis;
+    }
+
+    /**
+     * Fresh database file with the app schema.
+     */
+    static Connection freshDatabase(String name) throws IOException, SQLException {
+        Files.createDirectories(CACHE);
+        Path db = CACHE.resolve(name);
+        Files.deleteIfExists(db);
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db);
+        Schema.create(connection);
+        return connection;
+    }
+
+    /**
+     * Full dictionary from data/dictionary, imported once into a cached database and snapshot.
+     */
+    static Map<String, DictEntry> dictionary() throws Exception {
+        Files.createDirectories(CACHE);
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + CACHE.resolve("dictionary.db"));
+        Schema.create(connection);
+        DictionaryLoader loader = new DictionaryLoader(connection, DATA.resolve("dictionary"), CACHE.resolve("dictionary.snapshot"), null);
+        Map<String, DictEntry> dictionary = new HashMap<>();
+        loader.load(dictionary);
+        Database.close(connection);
+        return dictionary;
+    }
+
+    /**
+     * Labels from data/*_words.csv plus every fourth lemma of the analysis, rotating through the three labels.
+     * They are also set in LemmaIds, where report and highlighting read them.
+     */
+    static Map<String, String> userWords(ArticleAnalysis analysis) throws IOException {
+        Map<String, String> userWords = new HashMap<>();
+        for (String label : new String[]{"known", "unknown", "uncertain"}) {
+            List<String> lines = Files.readAllLines(DATA.resolve(label + "_words.csv"));
+            for (String line : lines.subList(1, lines.size())) {
+                if (!line.isBlank()) userWords.put(line.trim(), label);
+            }
+        }
+        int n = 0;
+        for (String lemma : new TreeSet<>(Arrays.asList(analysis.lemmas).subList(0, analysis.size))) {
+            if (Tokens.isWord(lemma) && n++ % 4 == 0) {
+                userWords.putIfAbsent(lemma, Tokens.LABELS[n % 3]);
+            }
+        }
+        for (Map.Entry<String, String> entry : userWords.entrySet()) {
+            LemmaIds.setLabel(LemmaIds.id(entry.getKey()), Tokens.labelIndex(entry.getValue()));
+        }
+        return userWords;
+    }
+
+    /**
+     * Rough stand-in for the CoreNLP tokenizer: letter runs, digit runs and single punctuation marks.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int start = i;
+            if (Character.isLetter(c)) {
+                while (i < text.length() && Character.isLetter(text.charAt(i))) i++;
+            } else if (Character.isDigit(c)) {
+                while (i < text.length() && Character.isDigit(text.charAt(i))) i++;
+            } else {
+                i++;
+                if (Character.isWhitespace(c)) continue;
+            }
+            tokens.add(text.substring(start, i));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,100 @@
+package com.wordminer;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Memory and lookup speed of token classification keyed by String lemma
+ * (HashMap<String, DictEntry> + HashMap<String, String> labels) against LemmaIds
+ * (byte arrays indexed by id), over the full dictionary and the analyses of data/articles.
+ */
+public class LemmaIdComparison {
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<ArticleAnalysis> analyses = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Fixtures.DATA.resolve("articles"))) {
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                analyses.add(Fixtures.analysis(file.getFileName().toString()));
+            }
+        }
+        Map<String, DictEntry> dictionary = Fixtures.dictionary();
+        Map<String, String> userWords = new HashMap<>();
+        for (ArticleAnalysis analysis : analyses) {
+            userWords.putAll(Fixtures.userWords(analysis));
+        }
+
+        // String-keyed classification tables: map nodes plus an entry object per word. Bytes are
+        // counted as allocated; the maps are sized up front, so nothing of it is garbage
+        long before = threads.getCurrentThreadAllocatedBytes();
+        Map<String, DictEntry> levelMap = new HashMap<>(dictionary.size() * 4 / 3 + 1);
+        for (Map.Entry<String, DictEntry> entry : dictionary.entrySet()) {
+            DictEntry copy = new DictEntry();
+            copy.levels = entry.getValue().levels;
+            levelMap.put(entry.getKey(), copy);
+        }
+        Map<String, String> labelMap = new HashMap<>(userWords.size() * 4 / 3 + 1);
+        labelMap.putAll(userWords);
+        long mapBytes = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Id tables: one level byte and one label byte per id; the id map is left out, like the
+        // canonical string table the String-keyed path relies on
+        long arrayBytes = 2L * LemmaIds.size();
+
+        long tokens = 0;
+        for (ArticleAnalysis analysis : analyses) tokens += analysis.size;
+
+        long mapSum = 0, idSum = 0;
+        for (int warmup = 0; warmup < 20; warmup++) {
+            mapSum += classifyByMap(analyses, levelMap, labelMap);
+            idSum += classifyById(analyses);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) mapSum += classifyByMap(analyses, levelMap, labelMap);
+        double mapRate = tokens * ROUNDS * 1e9 / (System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) idSum += classifyById(analyses);
+        double idRate = tokens * ROUNDS * 1e9 / (System.nanoTime() - start);
+
+        System.out.println(String.format("Lemmas: %d in the dictionary, %d labeled, %d ids", dictionary.size(), userWords.size(), LemmaIds.size()));
+        System.out.println(String.format("Tables: HashMap %.1f KB, id arrays %.1f KB", mapBytes / 1024.0, arrayBytes / 1024.0));
+        System.out.println(String.format("Lookups: HashMap %.0f tokens/s, ids %.0f tokens/s (checksums %d, %d)",
+            mapRate, idRate, mapSum / (ROUNDS + 20), idSum / (ROUNDS + 20)));
+    }
+
+    /**
+     * Sum of level bits and labels over the word tokens, looked up by lemma string.
+     */
+    private static long classifyByMap(List<ArticleAnalysis> analyses, Map<String, DictEntry> levels, Map<String, String> labels) {
+        long sum = 0;
+        for (ArticleAnalysis a : analyses) {
+            for (int i = 0; i < a.size; i++) {
+                if (!Tokens.isWord(a.words[i])) continue;
+                DictEntry entry = levels.get(a.lemmas[i]);
+                if (entry != null) sum += entry.levels;
+                sum += Tokens.labelIndex(labels.get(a.lemmas[i]));
+            }
+        }
+        return sum;
+    }
+
+    private static long classifyById(List<ArticleAnalysis> analyses) {
+        long sum = 0;
+        for (ArticleAnalysis a : analyses) {
+            for (int i = 0; i < a.size; i++) {
+                int id = a.ids[i];
+                if (id < 0) continue;
+                sum += LemmaIds.levels(id) & ~LemmaIds.IN_DICTIONARY;
+                sum += LemmaIds.label(id);
+            }
+        }
+        return sum;
+    }
+}
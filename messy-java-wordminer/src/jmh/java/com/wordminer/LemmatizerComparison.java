@@ -0,0 +1,81 @@
+package com.wordminer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs both lemmatizer backends over data/articles and prints lemma agreement with
+ * CoreNLP (tokens aligned by character offsets), load time and tokens/s for each.
+ */
+public class LemmatizerComparison {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        List<String> articles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Fixtures.DATA.resolve("articles"))) {
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                articles.add(Files.readString(file));
+            }
+        }
+        Map<String, DictEntry> dictionary = Fixtures.dictionary();
+
+        long start = System.nanoTime();
+        Lemmatizer corenlp = new CoreNlpLemmatizer();
+        long corenlpLoad = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        Lemmatizer lookup = new LookupLemmatizer(dictionary);
+        long lookupLoad = (System.nanoTime() - start) / 1_000_000;
+
+        int aligned = 0, agreed = 0, words = 0, wordsAgreed = 0;
+        Map<String, Integer> misses = new HashMap<>();
+        for (String text : articles) {
+            ArticleAnalysis expected = corenlp.analyze(text);
+            ArticleAnalysis actual = lookup.analyze(text);
+            Map<Long, Integer> byOffsets = new HashMap<>();
+            for (int i = 0; i < actual.size; i++) {
+                byOffsets.put(((long) actual.begins[i] << 32) | actual.ends[i], i);
+            }
+            for (int i = 0; i < expected.size; i++) {
+                Integer j = byOffsets.get(((long) expected.begins[i] << 32) | expected.ends[i]);
+                if (j == null) continue;
+                aligned++;
+                boolean same = expected.lemmas[i].equals(actual.lemmas[j]);
+                if (same) agreed++;
+                if (Tokens.isWord(expected.words[i])) {
+                    words++;
+                    if (same) {
+                        wordsAgreed++;
+                    } else {
+                        misses.merge(expected.words[i] + " -> " + actual.lemmas[j] + " (corenlp: " + expected.lemmas[i] + ")", 1, Integer::sum);
+                    }
+                }
+            }
+            System.out.println(String.format("Tokens: corenlp %d, lookup %d", expected.size, actual.size));
+        }
+
+        System.out.println(String.format("Aligned tokens: %d, lemma agreement %.1f%%", aligned, 100.0 * agreed / aligned));
+        System.out.println(String.format("Word tokens:    %d, lemma agreement %.1f%%", words, 100.0 * wordsAgreed / words));
+        System.out.println(String.format("Load: corenlp %d ms, lookup %d ms", corenlpLoad, lookupLoad));
+        System.out.println(String.format("Speed: corenlp %.0f tokens/s, lookup %.0f tokens/s",
+            tokensPerSecond(corenlp, articles), tokensPerSecond(lookup, articles)));
+
+        System.out.println("Most frequent disagreements:");
+        misses.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .limit(20)
+            .forEach(e -> System.out.println(String.format("  %4d  %s", e.getValue(), e.getKey())));
+    }
+
+    private static double tokensPerSecond(Lemmatizer lemmatizer, List<String> articles) {
+        for (String text : articles) lemmatizer.analyze(text);
+        long tokens = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (String text : articles) tokens += lemmatizer.analyze(text).size;
+        }
+        return tokens * 1e9 / (System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,159 @@
+package com.wordminer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex + boxed-map token loop (as import/report used to run it) against the
+ * Tokens classifier with int[] counters, and against the LemmaIds token stream
+ * with level and label arrays, on copies of data/articles/a1.txt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenLoopBenchmark {
+
+    @Param({"1", "10"})
+    int copies;
+
+    String[] words;
+    String[] rawLemmas;
+    int[] ids;
+    Map<String, DictEntry> dictionary = new HashMap<>();
+    Map<String, String> userWords = new HashMap<>();
+
+    @Setup
+    public void setup() throws Exception {
+        String text = Files.readString(Paths.get("data/articles/a1.txt"));
+        List<String> tokens = new ArrayList<>();
+        for (int c = 0; c < copies; c++) {
+            tokens.addAll(Fixtures.tokenize(text));
+        }
+        words = tokens.toArray(new String[0]);
+        // CoreNLP keeps the case of proper nouns and sentence starts, so lemmas still need lowercasing
+        rawLemmas = words.clone();
+
+        int n = 0;
+        for (String w : new TreeSet<>(tokens)) {
+            String lemma = w.toLowerCase();
+            if (n % 3 == 0) {
+                DictEntry entry = new DictEntry();
+                entry.addLevel(DictEntry.LEVELS[n % DictEntry.LEVELS.length]);
+                dictionary.put(lemma, entry);
+            }
+            if (n % 5 == 0) {
+                userWords.put(lemma, Tokens.LABELS[n % 3]);
+            }
+            n++;
+        }
+
+        // What ArticleAnalysis holds once a token stream is built
+        ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = Tokens.isWord(words[i]) ? LemmaIds.id(Tokens.lemma(rawLemmas[i])) : -1;
+        }
+        for (Map.Entry<String, DictEntry> entry : dictionary.entrySet()) {
+            LemmaIds.setLevels(LemmaIds.id(entry.getKey()), entry.getValue().levels);
+        }
+        for (Map.Entry<String, String> entry : userWords.entrySet()) {
+            LemmaIds.setLabel(LemmaIds.id(entry.getKey()), Tokens.labelIndex(entry.getValue()));
+        }
+    }
+
+    @Benchmark
+    public void regexLoop(Blackhole bh) {
+        int totalWords = 0;
+        Set<String> uniqueLemmas = new HashSet<>();
+        Map<String, Integer> levelCounts = new HashMap<>();
+        Map<String, Integer> labelCounts = new HashMap<>();
+        labelCounts.put("known", 0);
+        labelCounts.put("unknown", 0);
+        labelCounts.put("uncertain", 0);
+        labelCounts.put("unlabeled", 0);
+
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].matches("[a-zA-Z]+")) {
+                totalWords++;
+                String lemma = rawLemmas[i].toLowerCase();
+                uniqueLemmas.add(lemma);
+                if (dictionary.containsKey(lemma)) {
+                    for (String level : dictionary.get(lemma).levelNames()) {
+                        levelCounts.put(level, levelCounts.getOrDefault(level, 0) + 1);
+                    }
+                }
+            }
+        }
+        for (String lemma : uniqueLemmas) {
+            String label = userWords.getOrDefault(lemma, "unlabeled");
+            labelCounts.put(label, labelCounts.get(label) + 1);
+        }
+
+        bh.consume(totalWords);
+        bh.consume(levelCounts);
+        bh.consume(labelCounts);
+    }
+
+    @Benchmark
+    public void classifierLoop(Blackhole bh) {
+        int totalWords = 0;
+        Set<String> uniqueLemmas = new HashSet<>();
+        int[] levelCounts = new int[DictEntry.LEVELS.length];
+        int[] labelCounts = new int[Tokens.LABELS.length];
+
+        for (int i = 0; i < words.length; i++) {
+            if (Tokens.isWord(words[i])) {
+                totalWords++;
+                String lemma = Tokens.lemma(rawLemmas[i]);
+                uniqueLemmas.add(lemma);
+                DictEntry entry = dictionary.get(lemma);
+                if (entry != null) {
+                    for (int l = 0; l < levelCounts.length; l++) {
+                        if (entry.hasLevel(l)) levelCounts[l]++;
+                    }
+                }
+            }
+        }
+        for (String lemma : uniqueLemmas) {
+            labelCounts[Tokens.labelIndex(userWords.get(lemma))]++;
+        }
+
+        bh.consume(totalWords);
+        bh.consume(levelCounts);
+        bh.consume(labelCounts);
+    }
+
+    @Benchmark
+    public void idLoop(Blackhole bh) {
+        int totalWords = 0;
+        BitSet uniqueLemmas = new BitSet(LemmaIds.size());
+        int[] levelCounts = new int[DictEntry.LEVELS.length];
+        int[] labelCounts = new int[Tokens.LABELS.length];
+
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (id >= 0) {
+                totalWords++;
+                uniqueLemmas.set(id);
+                int levels = LemmaIds.levels(id);
+                for (int l = 0; l < levelCounts.length; l++) {
+                    if ((levels & (1 << l)) != 0) levelCounts[l]++;
+                }
+            }
+        }
+        for (int id = uniqueLemmas.nextSetBit(0); id >= 0; id = uniqueLemmas.nextSetBit(id + 1)) {
+            labelCounts[LemmaIds.label(id)]++;
+        }
+
+        bh.consume(totalWords);
+        bh.consume(levelCounts);
+        bh.consume(labelCounts);
+    }
+}
@@ -0,0 +1,160 @@
+package com.wordminer;
+
+import java.io.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Stored NLP result of one article: token offsets, surface form, lowercase lemma and POS.
+ * Saved as a blob next to the articles row so report and reading never re-run the pipeline.
+ */
+class ArticleAnalysis {
+
+    // Bump when the blob layout changes
+    private static final int FORMAT_VERSION = 1;
+
+    // Lemmatizer backend and config that produced this analysis
+    final String stamp;
+
+    int size;
+    int[] begins;
+    int[] ends;
+    String[] words;
+    String[] lemmas;
+    String[] tags;
+    
+    // LemmaIds id of each word token's lemma, -1 for punctuation and numbers; not stored
+    int[] ids;
+
+    /**
+     * Stored analysis of an article, or null when it is missing or was made by another
+     * lemmatizer backend, pipeline config or blob format. The stamp is Lemmatizer.stamp().
+     */
+    static ArticleAnalysis load(Connection connection, int articleId, String stamp) throws SQLException {
+        PreparedStatement ps = Database.prepare(connection, "SELECT stamp, data FROM article_analysis WHERE article_id=?");
+        ps.setInt(1, articleId);
+        try (ResultSet rs = ps.executeQuery()) {
+            if (rs.next() && storedStamp(stamp).equals(rs.getString("stamp"))) {
+                return fromBytes(rs.getBytes("data"), stamp);
+            }
+        }
+        return null;
+    }
+
+    private static String storedStamp(String lemmatizerStamp) {
+        return FORMAT_VERSION + ";" + lemmatizerStamp;
+    }
+
+    static void save(Connection connection, int articleId, ArticleAnalysis analysis) throws SQLException {
+        PreparedStatement ps = Database.prepare(connection, "INSERT OR REPLACE INTO article_analysis (article_id, stamp, data) VALUES (?,?,?)");
+        ps.setInt(1, articleId);
+        ps.setString(2, storedStamp(analysis.stamp));
+        ps.setBytes(3, analysis.toBytes());
+        ps.executeUpdate();
+    }
+
+    ArticleAnalysis(int capacity, String stamp) {
+        this.stamp = stamp;
+        begins = new int[capacity];
+        ends = new int[capacity];
+        words = new String[capacity];
+        lemmas = new String[capacity];
+        tags = new String[capacity];
+        ids = new int[capacity];
+    }
+
+    void add(int begin, int end, String word, String lemma, String tag) {
+        begins[size] = begin;
+        ends[size] = end;
+        words[size] = word;
+        lemmas[size] = lemma;
+        tags[size] = tag;
+        ids[size] = Tokens.isWord(word) ? LemmaIds.id(lemma) : -1;
+        size++;
+    }
+
+    /**
+     * Layout: string pool (words, lemmas, tags share it), then per token
+     * begin delta, length and three pool indexes, all as varints.
+     */
+    byte[] toBytes() {
+        Map<String, Integer> pool = new LinkedHashMap<>();
+        int[] refs = new int[size * 3];
+        for (int i = 0; i < size; i++) {
+            refs[i * 3] = pool.computeIfAbsent(words[i], k -> pool.size());
+            refs[i * 3 + 1] = pool.computeIfAbsent(lemmas[i], k -> pool.size());
+            refs[i * 3 + 2] = pool.computeIfAbsent(tags[i] == null ? "" : tags[i], k -> pool.size());
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 8 + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(pool.size());
+            for (String s : pool.keySet()) {
+                out.writeUTF(s);
+            }
+            out.writeInt(size);
+            int lastBegin = 0;
+            for (int i = 0; i < size; i++) {
+                writeVarInt(out, begins[i] - lastBegin);
+                writeVarInt(out, ends[i] - begins[i]);
+                writeVarInt(out, refs[i * 3]);
+                writeVarInt(out, refs[i * 3 + 1]);
+                writeVarInt(out, refs[i * 3 + 2]);
+                lastBegin = begins[i];
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static ArticleAnalysis fromBytes(byte[] data, String stamp) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported analysis format");
+            }
+            String[] pool = new String[in.readInt()];
+            for (int i = 0; i < pool.length; i++) {
+                String s = in.readUTF();
+                pool[i] = Tokens.isWord(s) ? Tokens.canonical(s) : s;
+            }
+            int count = in.readInt();
+            ArticleAnalysis a = new ArticleAnalysis(count, stamp);
+            int begin = 0;
+            for (int i = 0; i < count; i++) {
+                begin += readVarInt(in);
+                int end = begin + readVarInt(in);
+                a.add(begin, end, pool[readVarInt(in)], pool[readVarInt(in)], pool[readVarInt(in)]);
+            }
+            return a;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.wordminer;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Imports articles off the EDT.
+ * Each job runs read -> annotate -> stats on a bounded worker queue and hands the
+ * insert to the DbWriter, so the next job can annotate while the previous one is saved.
+ * Folder imports fan annotation out over a pool of threads sharing the lemmatizer.
+ */
+class ArticleImporter {
+    private static final int MAX_QUEUED_JOBS = 4;
+    
+    // Annotation threads for folder import, -Dwordminer.importThreads=N
+    static final int IMPORT_THREADS = Integer.getInteger("wordminer.importThreads", Runtime.getRuntime().availableProcessors());
+    
+    // Finished articles per insert transaction during folder import
+    private static final int INSERT_BATCH_SIZE = 20;
+
+    private final CompletableFuture<Lemmatizer> lemmatizer;
+    private final Map<String, DictEntry> dictionary;
+    private final long dictionarySignature;
+    private final DbWriter dbWriter;
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+        1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), r -> {
+            Thread t = new Thread(r, "wordminer-import");
+            t.setDaemon(true);
+            return t;
+        });
+
+    ArticleImporter(CompletableFuture<Lemmatizer> lemmatizer, Map<String, DictEntry> dictionary,
+                    long dictionarySignature, DbWriter dbWriter) {
+        this.lemmatizer = lemmatizer;
+        this.dictionary = dictionary;
+        this.dictionarySignature = dictionarySignature;
+        this.dbWriter = dbWriter;
+    }
+
+    /**
+     * Summary of one imported article
+     */
+    static class Result {
+        int articleId;
+        String title;
+        int totalWords;
+        int uniqueWords;
+        int[] levelCounts = new int[DictEntry.LEVELS.length];
+        int notInDict;
+        int tokens;
+    }
+    
+    /**
+     * Summary of a folder import
+     */
+    static class BatchResult {
+        int files;
+        int imported;
+        int duplicates;
+        int empty;
+        List<String> failures = new ArrayList<>();
+        long tokens;
+        long elapsedMs;
+        
+        double articlesPerSec() {
+            return elapsedMs == 0 ? 0 : imported * 1000.0 / elapsedMs;
+        }
+        
+        double tokensPerSec() {
+            return elapsedMs == 0 ? 0 : tokens * 1000.0 / elapsedMs;
+        }
+    }
+    
+    /**
+     * An analyzed article waiting for its insert
+     */
+    static class Pending {
+        File file;
+        ContentBlocks content;
+        String hash;
+        ArticleAnalysis analysis;
+        Result result;
+    }
+
+    /**
+     * Queues the job; throws RejectedExecutionException when too many imports are waiting.
+     */
+    void start(SwingWorker<?, ?> job) {
+        workers.execute(job);
+    }
+
+    /**
+     * One article import. Progress goes 0..100 and a "stage" property names the running stage.
+     */
+    class ImportJob extends SwingWorker<Result, Void> {
+        final File file;
+
+        ImportJob(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected Result doInBackground() throws Exception {
+            long begin = Metrics.start();
+            stage("Reading file", 0);
+            long start = Metrics.start();
+            ContentBlocks content = ContentBlocks.read(file.toPath());
+            Metrics.record("import: read", start);
+            if (content.isBlank()) {
+                throw new IllegalArgumentException("File is empty!");
+            }
+            String hash = content.hash();
+            start = Metrics.start();
+            boolean imported = dbWriter.call(c -> isImported(c, hash));
+            Metrics.record("import: dedupe", start);
+            if (imported) {
+                Metrics.count("import: duplicates skipped", 1);
+                throw new IllegalArgumentException("This article was already imported.");
+            }
+            if (isCancelled()) return null;
+
+            stage("Waiting for lemmatizer", 10);
+            start = Metrics.start();
+            Lemmatizer nlp = lemmatizer.get();
+            Metrics.record("import: wait for lemmatizer", start);
+            if (isCancelled()) return null;
+
+            stage("Analyzing", 20);
+            start = Metrics.start();
+            ArticleAnalysis analysis = nlp.analyze(content.text());
+            Metrics.record("import: analyze", start);
+            content.dropText();
+            if (isCancelled()) return null;
+
+            stage("Computing statistics", 80);
+            start = Metrics.start();
+            Result result = computeStats(file.getName(), analysis);
+            Metrics.record("import: stats", start);
+            if (isCancelled()) return null;
+
+            stage("Saving", 90);
+            Pending pending = new Pending();
+            pending.file = file;
+            pending.content = content;
+            pending.hash = hash;
+            pending.analysis = analysis;
+            pending.result = result;
+            start = Metrics.start();
+            dbWriter.transaction(c -> insertArticles(c, List.of(pending)));
+            Metrics.record("import: save", start);
+            Metrics.count("import: articles imported", 1);
+            Metrics.record("import: article", begin);
+            stage("Done", 100);
+            return result;
+        }
+
+        private void stage(String name, int progress) {
+            firePropertyChange("stage", null, name);
+            setProgress(progress);
+        }
+    }
+    
+    /**
+     * Imports every .txt file under a folder. Files are annotated in parallel,
+     * finished articles stream into batched insert transactions, and files whose
+     * content hash is already in the library are skipped before annotation.
+     */
+    class BatchImportJob extends SwingWorker<BatchResult, Void> {
+        final File dir;
+        
+        // Markers put on the result queue for skipped files
+        private final Object duplicate = new Object();
+        private final Object empty = new Object();
+        
+        BatchImportJob(File dir) {
+            this.dir = dir;
+        }
+        
+        @Override
+        protected BatchResult doInBackground() throws Exception {
+            BatchResult batch = new BatchResult();
+            firePropertyChange("stage", null, "Scanning folder");
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(dir.toPath())) {
+                files = walk.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".txt"))
+                            .sorted()
+                            .collect(Collectors.toList());
+            }
+            batch.files = files.size();
+            if (files.isEmpty()) return batch;
+            
+            // Hashes in the library; a file's hash joins only once its article is inserted
+            Set<String> seen = ConcurrentHashMap.newKeySet();
+            seen.addAll(dbWriter.call(ArticleImporter::existingHashes));
+            // Hashes a worker has taken on, so copies in the folder are analyzed only once;
+            // released when the analysis fails, so another copy is still tried
+            Set<String> claimed = ConcurrentHashMap.newKeySet();
+            
+            firePropertyChange("stage", null, "Waiting for lemmatizer");
+            Lemmatizer nlp = lemmatizer.get();
+            
+            long start = System.nanoTime();
+            BlockingQueue<Object> finished = new ArrayBlockingQueue<>(IMPORT_THREADS * 2);
+            ExecutorService pool = Executors.newFixedThreadPool(IMPORT_THREADS, r -> {
+                Thread t = new Thread(r, "wordminer-annotate");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                for (Path path : files) {
+                    pool.execute(() -> {
+                        Object out;
+                        try {
+                            out = analyzeFile(path, nlp, seen, claimed);
+                        } catch (Exception e) {
+                            out = path.getFileName() + ": " + e.getMessage();
+                        }
+                        try {
+                            finished.put(out);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+                
+                List<Pending> toInsert = new ArrayList<>();
+                for (int n = 1; n <= files.size() && !isCancelled(); n++) {
+                    Object out = finished.take();
+                    if (out == duplicate) {
+                        batch.duplicates++;
+                    } else if (out == empty) {
+                        batch.empty++;
+                    } else if (out instanceof String) {
+                        batch.failures.add((String) out);
+                    } else {
+                        toInsert.add((Pending) out);
+                    }
+                    
+                    if (toInsert.size() >= INSERT_BATCH_SIZE || (finished.isEmpty() && !toInsert.isEmpty())) {
+                        flush(toInsert, batch, seen);
+                    }
+                    firePropertyChange("stage", null, "Processed " + n + " of " + files.size());
+                    setProgress(n * 100 / files.size());
+                }
+                if (!isCancelled()) flush(toInsert, batch, seen);
+            } finally {
+                pool.shutdownNow();
+            }
+            
+            batch.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(String.format("Folder import: %d imported, %d duplicates, %d failed in %d ms (%.1f articles/s, %.0f tokens/s, %d threads)",
+                batch.imported, batch.duplicates, batch.failures.size(), batch.elapsedMs,
+                batch.articlesPerSec(), batch.tokensPerSec(), IMPORT_THREADS));
+            return batch;
+        }
+        
+        private Object analyzeFile(Path path, Lemmatizer nlp, Set<String> seen, Set<String> claimed) throws IOException {
+            long start = Metrics.start();
+            ContentBlocks content = ContentBlocks.read(path);
+            Metrics.record("import: read", start);
+            if (content.isBlank()) return empty;
+            
+            String hash = content.hash();
+            if (seen.contains(hash) || !claimed.add(hash)) {
+                Metrics.count("import: duplicates skipped", 1);
+                return duplicate;
+            }
+            boolean analyzed = false;
+            try {
+                if (isCancelled()) return empty;
+                
+                Pending pending = new Pending();
+                pending.file = path.toFile();
+                pending.content = content;
+                pending.hash = hash;
+                start = Metrics.start();
+                pending.analysis = nlp.analyze(content.text());
+                Metrics.record("import: analyze", start);
+                content.dropText();
+                start = Metrics.start();
+                pending.result = computeStats(pending.file.getName(), pending.analysis);
+                Metrics.record("import: stats", start);
+                analyzed = true;
+                return pending;
+            } finally {
+                // Cancelled or failed: another copy of the file may still be analyzed
+                if (!analyzed) claimed.remove(hash);
+            }
+        }
+        
+        private void flush(List<Pending> toInsert, BatchResult batch, Set<String> seen) throws SQLException {
+            if (toInsert.isEmpty()) return;
+            long start = Metrics.start();
+            dbWriter.transaction(c -> insertArticles(c, toInsert));
+            Metrics.record("import: save batch", start);
+            Metrics.count("import: articles imported", toInsert.size());
+            for (Pending p : toInsert) {
+                seen.add(p.hash);
+                batch.imported++;
+                batch.tokens += p.result.tokens;
+            }
+            toInsert.clear();
+        }
+    }
+
+    Result computeStats(String title, ArticleAnalysis analysis) {
+        Result result = new Result();
+        result.title = title;
+        result.tokens = analysis.size;
+        BitSet uniqueLemmas = new BitSet(LemmaIds.size());
+
+        for (int i = 0; i < analysis.size; i++) {
+            int id = analysis.ids[i];
+            if (id >= 0) {
+                result.totalWords++;
+                uniqueLemmas.set(id);
+
+                int levels = LemmaIds.levels(id);
+                for (int l = 0; l < result.levelCounts.length; l++) {
+                    if ((levels & (1 << l)) != 0) result.levelCounts[l]++;
+                }
+            }
+        }
+
+        result.uniqueWords = uniqueLemmas.cardinality();
+        for (int id = uniqueLemmas.nextSetBit(0); id >= 0; id = uniqueLemmas.nextSetBit(id + 1)) {
+            if (!LemmaIds.inDictionary(id)) result.notInDict++;
+        }
+        return result;
+    }
+
+    /**
+     * Inserts articles and their analysis; runs on the writer thread inside a transaction.
+     */
+    Void insertArticles(Connection c, List<Pending> articles) throws SQLException {
+        PreparedStatement ps = Database.prepare(c,
+            "INSERT INTO articles (title, content, file_path, total_words, unique_words, import_date, content_hash) VALUES (?,?,?,?,?,?,?)"
+        );
+        for (Pending p : articles) {
+            ps.setString(1, p.file.getName());
+            // Content goes to article_blocks; the column is only read for older articles
+            ps.setNull(2, Types.VARCHAR);
+            ps.setString(3, p.file.getAbsolutePath());
+            ps.setInt(4, p.result.totalWords);
+            ps.setInt(5, p.result.uniqueWords);
+            ps.setString(6, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            ps.setString(7, p.hash);
+            ps.executeUpdate();
+            
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No id returned for imported article");
+                p.result.articleId = keys.getInt(1);
+            }
+            p.content.save(c, p.result.articleId);
+            ArticleAnalysis.save(c, p.result.articleId, p.analysis);
+            WordStats.save(c, p.result.articleId, p.analysis);
+            ArticleStats.save(c, p.result.articleId, VocabularyReport.compute(p.analysis), dictionary, dictionarySignature);
+        }
+        return null;
+    }
+    
+    /**
+     * Articles imported before hashing existed are hashed here; Schema.create runs it once at startup.
+     */
+    static void backfillHashes(Connection c) throws SQLException {
+        try (Statement select = c.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id, content FROM articles WHERE content_hash IS NULL");
+             PreparedStatement update = c.prepareStatement("UPDATE articles SET content_hash=? WHERE id=?")) {
+            while (rs.next()) {
+                update.setString(1, contentHash(rs.getString("content")));
+                update.setInt(2, rs.getInt("id"));
+                update.executeUpdate();
+            }
+        }
+    }
+    
+    static boolean isImported(Connection c, String hash) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "SELECT 1 FROM articles WHERE content_hash=?");
+        ps.setString(1, hash);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+    
+    static Set<String> existingHashes(Connection c) throws SQLException {
+        Set<String> hashes = new HashSet<>();
+        try (ResultSet rs = Database.prepare(c, "SELECT content_hash FROM articles").executeQuery()) {
+            while (rs.next()) {
+                hashes.add(rs.getString(1));
+            }
+        }
+        return hashes;
+    }
+    
+    static String contentHash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.wordminer;
+
+import java.util.Arrays;
+
+/**
+ * Splits an article into pages of roughly PAGE_CHARS characters at token boundaries,
+ * preferring paragraph breaks, so the reading window only lays out a few pages at a time.
+ */
+class ArticlePages {
+    // Target page length, -Dwordminer.pageChars=N
+    static final int PAGE_CHARS = Integer.getInteger("wordminer.pageChars", 8000);
+
+    private final int length;
+    private int[] starts = new int[8];
+    private int[] firstTokens = new int[8];
+    private int count;
+    private final int tokenCount;
+
+    private ArticlePages(int length, int tokenCount) {
+        this.length = length;
+        this.tokenCount = tokenCount;
+    }
+
+    static ArticlePages split(CharSequence content, ArticleAnalysis analysis, int pageChars) {
+        ArticlePages pages = new ArticlePages(content.length(), analysis.size);
+        pages.add(0, 0);
+
+        int pageStart = 0;
+        for (int i = 1; i < analysis.size; i++) {
+            int begin = analysis.begins[i];
+            int filled = begin - pageStart;
+            if (filled < pageChars) continue;
+
+            // Break at a paragraph if there is one soon enough, else at this token
+            boolean paragraph = false;
+            for (int c = analysis.ends[i - 1]; c < begin && !paragraph; c++) {
+                paragraph = content.charAt(c) == '\n';
+            }
+            if (paragraph || filled >= pageChars + pageChars / 2) {
+                pages.add(begin, i);
+                pageStart = begin;
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * One page per stored content block; a block starts at a token unless it had to be cut
+     * inside a very long run without whitespace.
+     */
+    static ArticlePages atBlocks(int[] blockStarts, int length, ArticleAnalysis analysis) {
+        ArticlePages pages = new ArticlePages(length, analysis.size);
+        int token = 0;
+        for (int start : blockStarts) {
+            while (token < analysis.size && analysis.begins[token] < start) token++;
+            pages.add(start, token);
+        }
+        return pages;
+    }
+
+    private void add(int start, int firstToken) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            firstTokens = Arrays.copyOf(firstTokens, count * 2);
+        }
+        starts[count] = start;
+        firstTokens[count] = firstToken;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * First character of the page
+     */
+    int start(int page) {
+        return starts[page];
+    }
+
+    /**
+     * One past the last character of the page
+     */
+    int end(int page) {
+        return page + 1 < count ? starts[page + 1] : length;
+    }
+
+    int firstToken(int page) {
+        return firstTokens[page];
+    }
+
+    int endToken(int page) {
+        return page + 1 < count ? firstTokens[page + 1] : tokenCount;
+    }
+
+    /**
+     * Page holding the character offset
+     */
+    int pageOf(int offset) {
+        int i = Arrays.binarySearch(starts, 0, count, offset);
+        return i >= 0 ? i : Math.max(0, -i - 2);
+    }
+}
@@ -0,0 +1,267 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stored vocabulary report numbers. The level histogram is saved at import with the
+ * dictionary signature it was computed against; label counts are counted at report time
+ * by joining the article's lemmas in word_stats with the current user_words.
+ * Neither needs the article content.
+ *
+ * The difficulty score is the share of an article's word tokens the user does not know,
+ * each weighted by how advanced its lemma is. The weighted sum is stored with the token
+ * count and shifted in place when a label changes, so re-ranking touches only the
+ * articles containing that lemma.
+ */
+final class ArticleStats {
+    private ArticleStats() {}
+
+    /**
+     * Saves the level histogram and scores the article against the current user_words;
+     * runs after WordStats.save, on the writer thread, so no label change can slip in between.
+     */
+    static void save(Connection c, int articleId, VocabularyReport report, Map<String, DictEntry> dictionary,
+                     long dictionarySignature) throws SQLException {
+        double unknownWeight = 0;
+        int wordTokens = 0;
+        PreparedStatement words = Database.prepare(c,
+            "SELECT s.lemma, s.count, u.label FROM word_stats s "
+            + "LEFT JOIN user_words u ON u.lemma=s.lemma WHERE s.article_id=?");
+        words.setInt(1, articleId);
+        try (ResultSet rs = words.executeQuery()) {
+            while (rs.next()) {
+                unknownWeight += rs.getInt(2) * unknownShare(rs.getString(3)) * weight(dictionary.get(rs.getString(1)));
+                wordTokens += rs.getInt(2);
+            }
+        }
+
+        PreparedStatement ps = Database.prepare(c,
+            "INSERT OR REPLACE INTO article_stats (article_id, dict_signature, level_counts, not_in_dict, unknown_weight, word_tokens) "
+            + "VALUES (?,?,?,?,?,?)");
+        ps.setInt(1, articleId);
+        ps.setLong(2, dictionarySignature);
+        ps.setString(3, encode(report.levelCounts));
+        ps.setInt(4, report.notInDict);
+        ps.setDouble(5, unknownWeight);
+        ps.setInt(6, wordTokens);
+        ps.executeUpdate();
+    }
+
+    static void delete(Connection c, int articleId) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "DELETE FROM article_stats WHERE article_id=?");
+        ps.setInt(1, articleId);
+        ps.executeUpdate();
+    }
+
+    /**
+     * Report numbers from the stored histogram and the label join, or null when the article
+     * is not indexed yet. A histogram that is missing or was made with another
+     * dictionary is recounted from the indexed lemmas and marked recounted.
+     */
+    static VocabularyReport load(Connection c, int articleId, Map<String, DictEntry> dictionary,
+                                 long dictionarySignature) throws SQLException {
+        VocabularyReport report = new VocabularyReport();
+        int unique = 0;
+        PreparedStatement labels = Database.prepare(c,
+            "SELECT COALESCE(u.label, 'unlabeled'), COUNT(*) FROM word_stats s "
+            + "LEFT JOIN user_words u ON u.lemma=s.lemma WHERE s.article_id=? GROUP BY 1");
+        labels.setInt(1, articleId);
+        try (ResultSet rs = labels.executeQuery()) {
+            while (rs.next()) {
+                report.labelCounts[Tokens.labelIndex(rs.getString(1))] += rs.getInt(2);
+                unique += rs.getInt(2);
+            }
+        }
+        if (unique == 0 && !WordStats.indexed(c, articleId)) return null;
+
+        PreparedStatement levels = Database.prepare(c,
+            "SELECT level_counts, not_in_dict FROM article_stats WHERE article_id=? AND dict_signature=?");
+        levels.setInt(1, articleId);
+        levels.setLong(2, dictionarySignature);
+        try (ResultSet rs = levels.executeQuery()) {
+            if (rs.next()) {
+                decode(rs.getString(1), report.levelCounts);
+                report.notInDict = rs.getInt(2);
+                return report;
+            }
+        }
+
+        // Dictionary changed since import: recount from the indexed lemmas
+        recount(c, articleId, dictionary, report);
+        report.recounted = true;
+        return report;
+    }
+
+    /**
+     * Scores and histograms articles that are indexed but have none, or whose were made
+     * with another dictionary. Returns the number of articles saved.
+     */
+    static int rescore(Connection c, Map<String, DictEntry> dictionary, long dictionarySignature) throws SQLException {
+        PreparedStatement stale = Database.prepare(c,
+            "SELECT a.id FROM articles a LEFT JOIN article_stats t ON t.article_id=a.id "
+            + "WHERE (t.article_id IS NULL OR t.dict_signature<>? OR t.unknown_weight IS NULL) "
+            + "AND EXISTS (SELECT 1 FROM word_stats_articles w WHERE w.article_id=a.id)");
+        stale.setLong(1, dictionarySignature);
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rs = stale.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+
+        for (int articleId : ids) {
+            VocabularyReport report = new VocabularyReport();
+            recount(c, articleId, dictionary, report);
+            save(c, articleId, report, dictionary, dictionarySignature);
+        }
+        return ids.size();
+    }
+
+    /**
+     * Records a label change of one lemma: shifts the score of every article containing it
+     * and returns their new scores by article id. Reads the previous label from user_words,
+     * so it must run in the same writer task as the user_words update, before it.
+     */
+    static Map<Integer, Double> labelChanged(Connection c, String lemma, String label,
+                                             Map<String, DictEntry> dictionary) throws SQLException {
+        String previous = null;
+        PreparedStatement current = Database.prepare(c, "SELECT label FROM user_words WHERE lemma=?");
+        current.setString(1, lemma);
+        try (ResultSet rs = current.executeQuery()) {
+            if (rs.next()) previous = rs.getString(1);
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        double delta = (unknownShare(label) - unknownShare(previous)) * weight(dictionary.get(lemma));
+        if (delta == 0) return scores;
+
+        // word_stats is keyed by (lemma, article_id), so this visits only the articles with the lemma
+        PreparedStatement shift = Database.prepare(c,
+            "UPDATE article_stats SET unknown_weight=unknown_weight+?*s.count FROM word_stats s "
+            + "WHERE s.lemma=? AND s.article_id=article_stats.article_id AND unknown_weight IS NOT NULL "
+            + "RETURNING article_stats.article_id, unknown_weight/word_tokens");
+        shift.setDouble(1, delta);
+        shift.setString(2, lemma);
+        try (ResultSet rs = shift.executeQuery()) {
+            while (rs.next()) {
+                scores.put(rs.getInt(1), rs.getDouble(2));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * labelChanged for many lemmas at once, with the same ordering rule. The changes are
+     * staged in a temp table and every affected article is shifted by one grouped UPDATE,
+     * instead of one statement per lemma.
+     */
+    static Map<Integer, Double> labelsChanged(Connection c, Map<String, String> changes,
+                                              Map<String, DictEntry> dictionary) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.execute("CREATE TEMP TABLE IF NOT EXISTS label_share (label TEXT PRIMARY KEY, share REAL)");
+            s.execute("CREATE TEMP TABLE IF NOT EXISTS label_change (lemma TEXT PRIMARY KEY, share REAL, weight REAL)");
+            s.execute("DELETE FROM label_share");
+            s.execute("DELETE FROM label_change");
+        }
+
+        // unknownShare as a table, so the previous labels are weighed inside the UPDATE
+        PreparedStatement share = Database.prepare(c, "INSERT INTO label_share (label, share) VALUES (?,?)");
+        for (int l = Tokens.KNOWN; l < Tokens.UNLABELED; l++) {
+            share.setString(1, Tokens.LABELS[l]);
+            share.setDouble(2, unknownShare(Tokens.LABELS[l]));
+            share.addBatch();
+        }
+        share.executeBatch();
+
+        PreparedStatement change = Database.prepare(c, "INSERT OR REPLACE INTO label_change (lemma, share, weight) VALUES (?,?,?)");
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            change.setString(1, entry.getKey());
+            change.setDouble(2, unknownShare(entry.getValue()));
+            change.setDouble(3, weight(dictionary.get(entry.getKey())));
+            change.addBatch();
+        }
+        change.executeBatch();
+
+        // CROSS JOIN keeps label_change outermost: the temp table has no statistics, and the
+        // planner would otherwise scan all of word_stats even for a handful of lemmas
+        Map<Integer, Double> scores = new HashMap<>();
+        PreparedStatement shift = Database.prepare(c,
+            "UPDATE article_stats SET unknown_weight=unknown_weight+d.delta FROM ("
+            + "SELECT s.article_id, SUM((ch.share-COALESCE(p.share,1))*ch.weight*s.count) AS delta "
+            + "FROM label_change ch CROSS JOIN word_stats s ON s.lemma=ch.lemma "
+            + "LEFT JOIN user_words u ON u.lemma=ch.lemma LEFT JOIN label_share p ON p.label=u.label "
+            + "GROUP BY s.article_id) d "
+            + "WHERE d.article_id=article_stats.article_id AND d.delta<>0 AND unknown_weight IS NOT NULL "
+            + "RETURNING article_stats.article_id, unknown_weight/word_tokens");
+        try (ResultSet rs = shift.executeQuery()) {
+            while (rs.next()) {
+                scores.put(rs.getInt(1), rs.getDouble(2));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * How much of a token with this label counts as not known: unknown and unlabeled fully,
+     * uncertain half.
+     */
+    static double unknownShare(String label) {
+        switch (Tokens.labelIndex(label)) {
+            case Tokens.KNOWN: return 0;
+            case Tokens.UNCERTAIN: return 0.5;
+            default: return 1;
+        }
+    }
+
+    /**
+     * Weight of a lemma by the first level that teaches it, from 1/7 for middle school up
+     * to 1 for SAT; lemmas outside the dictionary weigh as much as the last level.
+     */
+    static double weight(DictEntry entry) {
+        if (entry != null) {
+            for (int l = 0; l < DictEntry.LEVELS.length; l++) {
+                if (entry.hasLevel(l)) return (l + 1) / (double) DictEntry.LEVELS.length;
+            }
+        }
+        return 1;
+    }
+
+    private static void recount(Connection c, int articleId, Map<String, DictEntry> dictionary,
+                                VocabularyReport report) throws SQLException {
+        PreparedStatement lemmas = Database.prepare(c, "SELECT lemma FROM word_stats WHERE article_id=?");
+        lemmas.setInt(1, articleId);
+        List<String> articleLemmas = new ArrayList<>();
+        try (ResultSet rs = lemmas.executeQuery()) {
+            while (rs.next()) {
+                articleLemmas.add(rs.getString(1));
+            }
+        }
+        for (String lemma : articleLemmas) {
+            report.countLevels(lemma, dictionary);
+        }
+    }
+
+    private static String encode(int[] counts) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) s.append(',');
+            s.append(counts[i]);
+        }
+        return s.toString();
+    }
+
+    private static void decode(String s, int[] counts) {
+        String[] parts = s.split(",");
+        for (int i = 0; i < parts.length && i < counts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i]);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.wordminer;
+
+import javax.swing.table.AbstractTableModel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Article list that loads rows a page at a time as the table asks for them. Only metadata
+ * columns are selected, through a covering index, so the content is never read; sorting
+ * and title search are done by the query.
+ */
+class ArticleTableModel extends AbstractTableModel {
+    // Rows fetched per query, -Dwordminer.listPageSize=N
+    static final int PAGE_SIZE = Integer.getInteger("wordminer.listPageSize", 200);
+
+    // Pages kept in memory
+    private static final int CACHED_PAGES = 10;
+
+    static final int ID = 0, TITLE = 1, DIFFICULTY = 5;
+
+    private static final String[] COLUMNS = {"ID", "Title", "Total Words", "Unique Words", "Import Date", "Difficulty"};
+    private static final String[] ORDER_BY = {"a.id", "a.title COLLATE NOCASE", "a.total_words", "a.unique_words", "a.import_date", "difficulty"};
+
+    private final Connection connection;
+
+    private int sortColumn = ID;
+    private boolean ascending = false;
+    private String search;
+    private int rowCount;
+
+    // Access-ordered, so the eldest page is the least recently shown
+    private final LinkedHashMap<Integer, List<Object[]>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    ArticleTableModel(Connection connection) {
+        this.connection = connection;
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return COLUMNS.length; }
+    public String getColumnName(int col) { return COLUMNS[col]; }
+
+    public Class<?> getColumnClass(int col) {
+        if (col == TITLE || col == 4) return String.class;
+        return col == DIFFICULTY ? Double.class : Integer.class;
+    }
+
+    public Object getValueAt(int row, int col) {
+        List<Object[]> page = page(row / PAGE_SIZE);
+        int i = row % PAGE_SIZE;
+        return i < page.size() ? page.get(i)[col] : null;
+    }
+
+    int idAt(int row) {
+        return (Integer) getValueAt(row, ID);
+    }
+
+    String titleAt(int row) {
+        return (String) getValueAt(row, TITLE);
+    }
+
+    int sortColumn() { return sortColumn; }
+    boolean ascending() { return ascending; }
+
+    /**
+     * Sorts by the column; the same column again flips the direction.
+     */
+    void sortBy(int col) {
+        ascending = col == sortColumn ? !ascending : col == TITLE;
+        sortColumn = col;
+        reload();
+    }
+
+    /**
+     * Shows only articles whose title contains the text; blank shows all.
+     */
+    void setSearch(String text) {
+        search = text == null || text.isBlank() ? null : "%" + text.trim() + "%";
+        reload();
+    }
+
+    /**
+     * Drops the loaded pages and counts again, e.g. after an import or delete.
+     */
+    void reload() {
+        pages.clear();
+        try {
+            PreparedStatement ps = Database.prepare(connection,
+                "SELECT COUNT(*) FROM articles WHERE ?1 IS NULL OR title LIKE ?1");
+            ps.setString(1, search);
+            try (ResultSet rs = ps.executeQuery()) {
+                rowCount = rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            rowCount = 0;
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * New difficulty scores for some articles: patches the loaded rows in place. When sorted
+     * by difficulty the order may change too, so the caller reloads instead.
+     */
+    void scoresChanged(Map<Integer, Double> scores) {
+        for (Map.Entry<Integer, List<Object[]>> entry : pages.entrySet()) {
+            List<Object[]> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                Double score = scores.get((Integer) page.get(i)[ID]);
+                if (score != null) {
+                    page.get(i)[DIFFICULTY] = score;
+                    int row = entry.getKey() * PAGE_SIZE + i;
+                    fireTableCellUpdated(row, DIFFICULTY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Row of an article among the loaded pages, or -1. The page around nearRow is loaded first,
+     * since after a reload an article usually stays close to where it was.
+     */
+    int rowOf(int articleId, int nearRow) {
+        if (nearRow < rowCount) page(nearRow / PAGE_SIZE);
+        for (Map.Entry<Integer, List<Object[]>> entry : pages.entrySet()) {
+            List<Object[]> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if ((Integer) page.get(i)[ID] == articleId) return entry.getKey() * PAGE_SIZE + i;
+            }
+        }
+        return -1;
+    }
+
+    private List<Object[]> page(int index) {
+        List<Object[]> page = pages.get(index);
+        if (page != null) return page;
+
+        page = new ArrayList<>(PAGE_SIZE);
+        // One cached statement per sort order; the id breaks ties so pages never overlap.
+        // Unscored articles go last either way, not first as the easiest.
+        String direction = ascending ? " ASC" : " DESC";
+        String nulls = sortColumn == DIFFICULTY ? " NULLS LAST" : "";
+        try {
+            PreparedStatement ps = Database.prepare(connection,
+                "SELECT a.id, a.title, a.total_words, a.unique_words, a.import_date, t.unknown_weight/t.word_tokens AS difficulty "
+                + "FROM articles a LEFT JOIN article_stats t ON t.article_id=a.id "
+                + "WHERE ?1 IS NULL OR a.title LIKE ?1 "
+                + "ORDER BY " + ORDER_BY[sortColumn] + direction + nulls + ", a.id" + direction + " LIMIT ?2 OFFSET ?3");
+            ps.setString(1, search);
+            ps.setInt(2, PAGE_SIZE);
+            ps.setInt(3, index * PAGE_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // Unscored articles (no article_stats row or no weight yet) have no difficulty
+                    double score = rs.getDouble(6);
+                    Double difficulty = rs.wasNull() ? null : score;
+                    page.add(new Object[]{
+                        rs.getInt(1),
+                        rs.getString(2),
+                        rs.getInt(3),
+                        rs.getInt(4),
+                        rs.getString(5),
+                        difficulty
+                    });
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        pages.put(index, page);
+        return page;
+    }
+}
@@ -0,0 +1,179 @@
+package com.wordminer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read side of an article's content. Block-stored articles load only the block index;
+ * a block is fetched and inflated the first time a character in it is asked for.
+ * Articles imported as plain TEXT are wrapped as they are.
+ */
+class ArticleText implements CharSequence {
+    // Inflated blocks kept per article; the reading window shows up to three pages
+    private static final int CACHED_BLOCKS = 4;
+
+    private final Connection connection;
+    private final int articleId;
+    private final String plain;
+    private final int[] starts;
+    private final int[] lengths;
+    private final int length;
+    private int inflated;
+
+    private final LinkedHashMap<Integer, String> blocks = new LinkedHashMap<>(8, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+
+    private ArticleText(Connection connection, int articleId, String plain, int[] starts, int[] lengths, int length) {
+        this.connection = connection;
+        this.articleId = articleId;
+        this.plain = plain;
+        this.starts = starts;
+        this.lengths = lengths;
+        this.length = length;
+    }
+
+    /**
+     * Content of an article, or null if there is no such article. Blocks are read through
+     * the connection later, so it must stay open while the text is in use.
+     */
+    static ArticleText load(Connection c, int articleId) throws SQLException {
+        PreparedStatement index = Database.prepare(c,
+            "SELECT char_start, chars FROM article_blocks WHERE article_id=? ORDER BY block");
+        index.setInt(1, articleId);
+        int[] starts = new int[16], lengths = new int[16];
+        int count = 0;
+        try (ResultSet rs = index.executeQuery()) {
+            while (rs.next()) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    lengths = Arrays.copyOf(lengths, count * 2);
+                }
+                starts[count] = rs.getInt(1);
+                lengths[count] = rs.getInt(2);
+                count++;
+            }
+        }
+        if (count > 0) {
+            int length = starts[count - 1] + lengths[count - 1];
+            return new ArticleText(c, articleId, null, Arrays.copyOf(starts, count), Arrays.copyOf(lengths, count), length);
+        }
+
+        PreparedStatement content = Database.prepare(c, "SELECT content FROM articles WHERE id=?");
+        content.setInt(1, articleId);
+        try (ResultSet rs = content.executeQuery()) {
+            if (!rs.next()) return null;
+            return of(rs.getString(1) == null ? "" : rs.getString(1));
+        }
+    }
+
+    /**
+     * Text that is already in memory
+     */
+    static ArticleText of(String text) {
+        return new ArticleText(null, 0, text, null, null, text.length());
+    }
+
+    boolean isBlocked() {
+        return plain == null;
+    }
+
+    /**
+     * Blocks inflated so far
+     */
+    int inflated() {
+        return inflated;
+    }
+
+    /**
+     * Pages of the article: the stored blocks, or a split of plain text.
+     */
+    ArticlePages pages(ArticleAnalysis analysis) {
+        if (plain != null) return ArticlePages.split(plain, analysis, ArticlePages.PAGE_CHARS);
+        return ArticlePages.atBlocks(starts, length, analysis);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        if (plain != null) return plain.charAt(index);
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        int b = blockOf(index);
+        return block(b).charAt(index - starts[b]);
+    }
+
+    /**
+     * Inflates only the blocks the range touches.
+     */
+    public CharSequence subSequence(int start, int end) {
+        if (plain != null) return plain.substring(start, end);
+        if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException(start);
+        StringBuilder text = new StringBuilder(end - start);
+        for (int b = blockOf(start); b < starts.length && starts[b] < end; b++) {
+            String block = block(b);
+            text.append(block, Math.max(start, starts[b]) - starts[b], Math.min(end, starts[b] + lengths[b]) - starts[b]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * The whole text; inflates every block.
+     */
+    public String toString() {
+        return plain != null ? plain : subSequence(0, length).toString();
+    }
+
+    private int blockOf(int index) {
+        int i = Arrays.binarySearch(starts, index);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private String block(int b) {
+        String block = blocks.get(b);
+        if (block != null) return block;
+
+        try {
+            PreparedStatement ps = Database.prepare(connection, "SELECT data FROM article_blocks WHERE article_id=? AND block=?");
+            ps.setInt(1, articleId);
+            ps.setInt(2, b);
+            byte[] data;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new SQLException("Block " + b + " of article " + articleId + " is missing");
+                data = rs.getBytes(1);
+            }
+
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                // UTF-8 needs at most three bytes per char of the block
+                byte[] utf8 = new byte[lengths[b] * 3];
+                int size = 0;
+                while (!inflater.finished() && size < utf8.length) {
+                    int n = inflater.inflate(utf8, size, utf8.length - size);
+                    if (n == 0 && inflater.needsInput()) break;
+                    size += n;
+                }
+                block = new String(utf8, 0, size, StandardCharsets.UTF_8);
+            } finally {
+                inflater.end();
+            }
+        } catch (SQLException | DataFormatException e) {
+            throw new RuntimeException(e);
+        }
+        inflated++;
+        blocks.put(b, block);
+        return block;
+    }
+}
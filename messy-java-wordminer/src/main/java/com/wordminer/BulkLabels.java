@@ -0,0 +1,118 @@
+package com.wordminer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Label changes for many lemmas at once: a whole dictionary level, the rest of an article,
+ * or a label CSV. The selection is made in memory, then saved in one writer transaction
+ * with batched statements and applied to the LabelStore with a single notification.
+ */
+final class BulkLabels {
+    private BulkLabels() {}
+
+    /**
+     * Lemma -> label for every dictionary word of the level whose label differs.
+     */
+    static Map<String, String> level(Map<String, DictEntry> dictionary, int level, String label) {
+        int index = Tokens.labelIndex(label);
+        Map<String, String> changes = new HashMap<>();
+        for (Map.Entry<String, DictEntry> entry : dictionary.entrySet()) {
+            if (entry.getValue().hasLevel(level) && LemmaIds.label(LemmaIds.id(entry.getKey())) != index) {
+                changes.put(entry.getKey(), label);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Lemma -> label for the article's lemmas that have no label yet.
+     */
+    static Map<String, String> unlabeled(ArticleAnalysis analysis, String label) {
+        Map<String, String> changes = new HashMap<>();
+        for (int i = 0; i < analysis.size; i++) {
+            int id = analysis.ids[i];
+            if (id >= 0 && LemmaIds.label(id) == Tokens.UNLABELED) {
+                changes.put(LemmaIds.lemma(id), label);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Lemma -> label for a one-column CSV with a "lemma" header, as written by the export
+     * (known_words.csv, ...). Lemmas that already carry the label are left out.
+     */
+    static Map<String, String> csv(Path file, String label) throws IOException {
+        int index = Tokens.labelIndex(label);
+        Map<String, String> changes = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = in.readLine();
+            if (line != null && !line.trim().equalsIgnoreCase("lemma")) {
+                throw new IOException(file + ": expected a \"lemma\" header, found \"" + line + "\"");
+            }
+            while ((line = in.readLine()) != null) {
+                String lemma = Tokens.lemma(line.trim());
+                if (!Tokens.isWord(lemma)) continue;
+                int id = LemmaIds.find(lemma);
+                if (id < 0 || LemmaIds.label(id) != index) changes.put(lemma, label);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Label of an exported file name (known_words.csv -> "known"), or null.
+     */
+    static String labelOf(Path file) {
+        String name = file.getFileName().toString();
+        for (int l = Tokens.KNOWN; l < Tokens.UNLABELED; l++) {
+            if (name.startsWith(Tokens.LABELS[l] + "_")) return Tokens.LABELS[l];
+        }
+        return null;
+    }
+
+    /**
+     * Saves the changes in one transaction, then applies them to the store, which notifies
+     * its listeners once. Returns the new difficulty scores of the affected articles.
+     * Blocks on the writer; call it off the EDT.
+     */
+    static Map<Integer, Double> apply(DbWriter dbWriter, LabelStore labels, Map<String, String> changes,
+                                      Map<String, DictEntry> dictionary) throws SQLException {
+        if (changes.isEmpty()) return new HashMap<>();
+        long start = Metrics.start();
+        Map<Integer, Double> scores = dbWriter.transaction(c -> save(c, changes, dictionary));
+        labels.putAll(changes);
+        Metrics.record("labels: bulk apply", start);
+        Metrics.count("labels: bulk lemmas", changes.size());
+        return scores;
+    }
+
+    /**
+     * Scores first, since they read the previous labels, then the user_words rows in batches.
+     */
+    static Map<Integer, Double> save(Connection c, Map<String, String> changes,
+                                     Map<String, DictEntry> dictionary) throws SQLException {
+        Map<Integer, Double> scores = ArticleStats.labelsChanged(c, changes, dictionary);
+        String date = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        PreparedStatement ps = Database.prepare(c, "INSERT OR REPLACE INTO user_words (lemma, label, date) VALUES (?,?,?)");
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            ps.setString(1, entry.getKey());
+            ps.setString(2, entry.getValue());
+            ps.setString(3, date);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+        return scores;
+    }
+}
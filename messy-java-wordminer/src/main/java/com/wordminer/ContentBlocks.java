@@ -0,0 +1,203 @@
+package com.wordminer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Article content as deflated blocks of about BLOCK_CHARS characters, built while the
+ * file streams in. Blocks end after a paragraph break, or after whitespace once a block
+ * runs 50% long, so a block is also a reading page and can be inflated on its own.
+ * Blocks are hashed and deflated as they are cut. The plain text is read once into a
+ * buffer sized from the file, handed to the analysis as is, and kept only until the
+ * article is analyzed. Only the lookup backend reads the buffer in place; CoreNLP takes
+ * a String, so the default backend still copies the text once.
+ */
+class ContentBlocks {
+    // Target block length in characters, -Dwordminer.blockChars=N; defaults to the page length
+    static final int BLOCK_CHARS = Integer.getInteger("wordminer.blockChars", ArticlePages.PAGE_CHARS);
+
+    private static final int READ_BUFFER = 8192;
+
+    private int[] starts = new int[8];
+    private int[] lengths = new int[8];
+    private final List<byte[]> blocks = new ArrayList<>();
+    private int length;
+    private long plainBytes;
+    private long compressedBytes;
+    private String hash;
+    private StringBuilder text;
+    private boolean blank = true;
+
+    // Start of the block being filled and next character to look at, while reading
+    private int blockStart;
+    private int scan;
+
+    private final MessageDigest digest;
+    private final Deflater deflater = new Deflater();
+    private final byte[] deflateBuffer = new byte[READ_BUFFER];
+
+    private ContentBlocks() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Streams a UTF-8 file into blocks. The hash is the same as ArticleImporter.contentHash
+     * of the whole text; malformed input fails like Files.readString.
+     */
+    static ContentBlocks read(Path file) throws IOException {
+        ContentBlocks content = new ContentBlocks();
+        // A UTF-8 file never has more chars than bytes, so the buffer never grows
+        StringBuilder text = new StringBuilder((int) Math.min(Files.size(file), Integer.MAX_VALUE - 8));
+        char[] buffer = new char[READ_BUFFER];
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int n;
+            while ((n = reader.read(buffer)) > 0) {
+                for (int i = 0; i < n && content.blank; i++) {
+                    if (buffer[i] > ' ') content.blank = false;
+                }
+                text.append(buffer, 0, n);
+                content.cutBlocks(text);
+            }
+            if (content.blockStart < text.length() || content.blocks.isEmpty()) {
+                content.add(text, content.blockStart, text.length());
+            }
+        } finally {
+            content.deflater.end();
+        }
+        content.text = text;
+        content.hash = HexFormat.of().formatHex(content.digest.digest());
+        return content;
+    }
+
+    /**
+     * Deflates the blocks that are complete in the text read so far.
+     */
+    private void cutBlocks(StringBuilder text) {
+        while (scan < text.length()) {
+            // Nothing before the target length can end a block
+            int earliest = blockStart + BLOCK_CHARS - 1;
+            if (scan < earliest) {
+                scan = earliest;
+                continue;
+            }
+            char c = text.charAt(scan);
+            int n = scan + 1 - blockStart;
+            boolean end = c == '\n'
+                || (n >= BLOCK_CHARS + BLOCK_CHARS / 2 && Character.isWhitespace(c))
+                // No whitespace at all for a long stretch; never split a surrogate pair
+                || (n >= 2 * BLOCK_CHARS && !Character.isHighSurrogate(c));
+            scan++;
+            if (end) {
+                add(text, blockStart, scan);
+                blockStart = scan;
+            }
+        }
+    }
+
+    private void add(StringBuilder text, int start, int end) {
+        byte[] utf8 = text.substring(start, end).getBytes(StandardCharsets.UTF_8);
+        digest.update(utf8);
+        plainBytes += utf8.length;
+
+        deflater.reset();
+        deflater.setInput(utf8);
+        deflater.finish();
+        byte[] out = new byte[Math.max(64, utf8.length / 2)];
+        int size = 0;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(deflateBuffer);
+            if (size + n > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, size + n));
+            System.arraycopy(deflateBuffer, 0, out, size, n);
+            size += n;
+        }
+        compressedBytes += size;
+
+        int index = blocks.size();
+        if (index == starts.length) {
+            starts = Arrays.copyOf(starts, index * 2);
+            lengths = Arrays.copyOf(lengths, index * 2);
+        }
+        starts[index] = start;
+        lengths[index] = end - start;
+        blocks.add(Arrays.copyOf(out, size));
+        length = end;
+    }
+
+    /**
+     * The whole text, for analysis; null after dropText.
+     */
+    CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Lets the plain text go once it is analyzed, so only compressed blocks wait for the insert.
+     */
+    void dropText() {
+        text = null;
+    }
+
+    boolean isBlank() {
+        return blank;
+    }
+
+    String hash() {
+        return hash;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int blockCount() {
+        return blocks.size();
+    }
+
+    long plainBytes() {
+        return plainBytes;
+    }
+
+    long compressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Writes the blocks of an article; runs inside the insert transaction.
+     */
+    void save(Connection c, int articleId) throws SQLException {
+        PreparedStatement ps = Database.prepare(c,
+            "INSERT OR REPLACE INTO article_blocks (article_id, block, char_start, chars, data) VALUES (?,?,?,?,?)");
+        for (int i = 0; i < blocks.size(); i++) {
+            ps.setInt(1, articleId);
+            ps.setInt(2, i);
+            ps.setInt(3, starts[i]);
+            ps.setInt(4, lengths[i]);
+            ps.setBytes(5, blocks.get(i));
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    static void delete(Connection c, int articleId) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "DELETE FROM article_blocks WHERE article_id=?");
+        ps.setInt(1, articleId);
+        ps.executeUpdate();
+    }
+}
@@ -0,0 +1,53 @@
+package com.wordminer;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.CoreDocument;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Full CoreNLP tokenize/ssplit/pos/lemma pipeline. Accurate but slow to load and to run.
+ */
+class CoreNlpLemmatizer implements Lemmatizer {
+    // Known before the pipeline loads, so stored analyses can be checked without it
+    static final String STAMP = "corenlp" + new TreeMap<>(pipelineProperties());
+    
+    private final StanfordCoreNLP pipeline = new StanfordCoreNLP(pipelineProperties());
+    
+    static Properties pipelineProperties() {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize,ssplit,pos,lemma");
+        props.setProperty("tokenize.language", "en");
+        return props;
+    }
+    
+    public String name() {
+        return "corenlp";
+    }
+    
+    public String stamp() {
+        return STAMP;
+    }
+    
+    public ArticleAnalysis analyze(CharSequence text) {
+        // CoreDocument only takes a String, so the text is copied here
+        CoreDocument doc = new CoreDocument(text.toString());
+        pipeline.annotate(doc);
+        
+        List<CoreLabel> tokens = doc.tokens();
+        ArticleAnalysis a = new ArticleAnalysis(tokens.size(), stamp());
+        for (CoreLabel token : tokens) {
+            a.add(token.beginPosition(), token.endPosition(), token.word(), Tokens.lemma(token.lemma()), token.tag());
+        }
+        return a;
+    }
+    
+    public String lemma(String word) {
+        CoreDocument doc = new CoreDocument(word);
+        pipeline.annotate(doc);
+        return doc.tokens().isEmpty() ? Tokens.lemma(word) : Tokens.lemma(doc.tokens().get(0).lemma());
+    }
+}
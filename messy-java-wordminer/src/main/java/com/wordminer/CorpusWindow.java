@@ -0,0 +1,100 @@
+package com.wordminer;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cross-article analysis: lemmas in the most articles of the library, or lemmas shared
+ * by every selected article, filtered by label. Answered from the WordStats index.
+ */
+class CorpusWindow extends JFrame {
+    private static final String[] FILTERS = {"All", "Known", "Unknown", "Uncertain", "Unlabeled"};
+
+    private final Connection connection;
+    private final List<Integer> selectedIds;
+    private final Map<String, DictEntry> dictionary;
+
+    private final JComboBox<String> modeCombo;
+    private final JComboBox<String> filterCombo = new JComboBox<>(FILTERS);
+    private final JSpinner limitSpinner = new JSpinner(new SpinnerNumberModel(100, 10, 10000, 50));
+    private final JLabel statusLabel = new JLabel();
+    private final DefaultTableModel model;
+
+    CorpusWindow(Connection connection, List<Integer> selectedIds, Map<String, DictEntry> dictionary, JFrame parent) {
+        this.connection = connection;
+        this.selectedIds = selectedIds;
+        this.dictionary = dictionary;
+
+        setTitle("Cross-Article Analysis");
+        setSize(700, 600);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(parent);
+
+        modeCombo = new JComboBox<>(new String[]{
+            "Most articles (whole library)",
+            "Shared by the " + selectedIds.size() + " selected articles"
+        });
+        modeCombo.setEnabled(selectedIds.size() > 1);
+        if (selectedIds.size() > 1) modeCombo.setSelectedIndex(1);
+
+        JPanel topPanel = new JPanel();
+        topPanel.add(modeCombo);
+        topPanel.add(new JLabel("Label:"));
+        topPanel.add(filterCombo);
+        topPanel.add(new JLabel("Top:"));
+        topPanel.add(limitSpinner);
+
+        String[] columns = {"Lemma", "Articles", "Occurrences", "Label", "Levels"};
+        model = new DefaultTableModel(columns, 0) {
+            public boolean isCellEditable(int row, int col) { return false; }
+            public Class<?> getColumnClass(int col) { return col == 1 || col == 2 ? Integer.class : String.class; }
+        };
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+
+        modeCombo.addActionListener(e -> refresh());
+        filterCombo.addActionListener(e -> refresh());
+        limitSpinner.addChangeListener(e -> refresh());
+
+        add(topPanel, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        refresh();
+        setVisible(true);
+    }
+
+    private void refresh() {
+        String filter = (String) filterCombo.getSelectedItem();
+        String label = filter.equals("All") ? null : filter.toLowerCase();
+        int limit = (Integer) limitSpinner.getValue();
+
+        long start = System.nanoTime();
+        try {
+            List<WordStats.Row> rows = modeCombo.getSelectedIndex() == 1
+                ? WordStats.overlap(connection, selectedIds, label, limit)
+                : WordStats.topLemmas(connection, label, limit);
+            long micros = (System.nanoTime() - start) / 1000;
+
+            model.setRowCount(0);
+            for (WordStats.Row row : rows) {
+                DictEntry entry = dictionary.get(row.lemma);
+                model.addRow(new Object[]{
+                    row.lemma,
+                    row.articles,
+                    row.occurrences,
+                    row.label,
+                    entry == null ? "" : String.join(", ", entry.levelNames())
+                });
+            }
+            statusLabel.setText(String.format(" %d lemmas in %.1f ms", rows.size(), micros / 1000.0));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Query failed: " + e.getMessage());
+        }
+    }
+}
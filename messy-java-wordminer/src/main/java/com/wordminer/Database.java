@@ -0,0 +1,141 @@
+package com.wordminer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connections to wordminer.db, a per-connection prepared-statement cache and latency
+ * histograms per statement type, kept in Metrics as "sql: <type>".
+ *
+ * The DbWriter owns the one write connection. UI code reads through a separate
+ * query-only connection; with WAL, those reads never wait for a writer transaction.
+ */
+final class Database {
+    static final String URL = "jdbc:sqlite:wordminer.db";
+
+    // Connection -> SQL -> cached statement; each connection is used by one thread at a time.
+    // The statements hold their connection, so entries live until close() removes them.
+    private static final Map<Connection, Map<String, Cached>> statements = new ConcurrentHashMap<>();
+
+    /**
+     * A prepared statement and, once metrics asked for it, its timed wrapper
+     */
+    private static final class Cached {
+        final PreparedStatement statement;
+        final String type;
+        PreparedStatement timed;
+
+        Cached(PreparedStatement statement, String type) {
+            this.statement = statement;
+            this.type = type;
+        }
+    }
+
+    private Database() {}
+
+    /**
+     * Opens a connection with WAL journaling and the tuned pragmas.
+     */
+    static Connection open(String url) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            // Durable at checkpoints; a crash can lose only the last commits, never corrupt the file
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=5000");
+            stmt.execute("PRAGMA temp_store=MEMORY");
+            stmt.execute("PRAGMA cache_size=-16000");
+            stmt.execute("PRAGMA mmap_size=268435456");
+        }
+        return connection;
+    }
+
+    /**
+     * Connection for reads only; writes on it fail instead of competing with the writer.
+     */
+    static Connection openReader(String url) throws SQLException {
+        Connection connection = open(url);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA query_only=ON");
+        }
+        return connection;
+    }
+
+    /**
+     * Drops the connection's statement cache and closes it, which closes the statements too.
+     */
+    static void close(Connection connection) {
+        statements.remove(connection);
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Cached statement for this connection and SQL, timed per statement type while
+     * metrics are on and the driver's own statement otherwise. Callers must not keep it
+     * across threads or close it; close(Connection) closes it with the connection.
+     */
+    static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        Map<String, Cached> cache = statements.computeIfAbsent(connection, c -> new ConcurrentHashMap<>());
+        Cached cached = cache.get(sql);
+        if (cached == null) {
+            cached = new Cached(connection.prepareStatement(sql), statementType(sql));
+            cache.put(sql, cached);
+        }
+        if (!Metrics.enabled()) return cached.statement;
+        if (cached.timed == null) {
+            cached.timed = timed(cached.statement, histogram(cached.type));
+        }
+        return cached.timed;
+    }
+
+    /**
+     * Statement type ("SELECT articles", "group commit", ...) -> latency
+     */
+    static LatencyHistogram histogram(String type) {
+        return Metrics.histogram("sql: " + type);
+    }
+
+    static void record(String type, long start) {
+        Metrics.record("sql: " + type, start);
+    }
+
+    /**
+     * "SELECT articles", "INSERT user_words", ...
+     */
+    static String statementType(String sql) {
+        String[] words = sql.trim().split("[\\s(]+");
+        String verb = words[0].toUpperCase();
+        if (verb.equals("UPDATE") && words.length > 1) return verb + " " + words[1];
+        for (int i = 1; i < words.length - 1; i++) {
+            if (words[i].equalsIgnoreCase("FROM") || words[i].equalsIgnoreCase("INTO")) {
+                return verb + " " + words[i + 1];
+            }
+        }
+        return verb;
+    }
+
+    private static PreparedStatement timed(PreparedStatement statement, LatencyHistogram histogram) {
+        return (PreparedStatement) Proxy.newProxyInstance(Database.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.equals("close")) return null;
+                long start = name.startsWith("execute") ? Metrics.start() : 0;
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    if (start != 0) {
+                        histogram.record(System.nanoTime() - start);
+                    }
+                }
+            });
+    }
+}
@@ -0,0 +1,219 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single writer thread that owns the write connection.
+ * All inserts, updates and deletes go through here so background jobs never write concurrently.
+ *
+ * Small fire-and-forget writes (labels, reading progress, cache rows) that queue up
+ * behind each other are group-committed: one transaction, one fsync, with a savepoint
+ * per task so a failing task rolls back alone.
+ */
+class DbWriter {
+
+    interface SqlTask<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    // Most small writes merged into one commit
+    private static final int MAX_GROUP = 256;
+
+    private static class Job {
+        final SqlTask<?> task;
+        final CompletableFuture<Object> result;
+
+        Job(SqlTask<?> task, CompletableFuture<Object> result) {
+            this.task = task;
+            this.result = result;
+        }
+
+        boolean small() {
+            return result == null;
+        }
+    }
+
+    private static final Job STOP = new Job(null, null);
+
+    private final Connection connection;
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    // Set with STOP queued, under the writer's lock, so no job is ever queued behind STOP
+    private boolean stopped;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong groupedWrites = new AtomicLong();
+
+    DbWriter(Connection connection) {
+        this.connection = connection;
+        thread = new Thread(this::run, "wordminer-db-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a write and returns immediately; failures are logged.
+     * The task must not change auto-commit, it runs inside a group commit.
+     */
+    void execute(SqlTask<?> task) {
+        if (!enqueue(new Job(task, null))) {
+            System.err.println("Write dropped, the writer is shut down");
+        }
+    }
+
+    /**
+     * Queues a write and waits for its result.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T call(SqlTask<T> task) throws SQLException {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (!enqueue(new Job(task, result))) throw new SQLException("The writer is shut down");
+        try {
+            return (T) result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs the task inside one transaction on the writer thread.
+     */
+    <T> T transaction(SqlTask<T> task) throws SQLException {
+        return call(c -> {
+            c.setAutoCommit(false);
+            try {
+                T result = task.run(c);
+                long start = Metrics.start();
+                c.commit();
+                Database.record("commit", start);
+                commits.incrementAndGet();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        });
+    }
+
+    private synchronized boolean enqueue(Job job) {
+        if (stopped) return false;
+        queue.add(job);
+        return true;
+    }
+
+    private void run() {
+        List<Job> group = new ArrayList<>();
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                job = STOP;
+            }
+            if (job == STOP) {
+                Database.close(connection);
+                drop();
+                return;
+            }
+
+            if (!job.small()) {
+                long start = Metrics.start();
+                try {
+                    job.result.complete(job.task.run(connection));
+                } catch (Throwable e) {
+                    job.result.completeExceptionally(e);
+                }
+                Database.record("writer task", start);
+                continue;
+            }
+
+            // Take the small writes queued right behind this one
+            group.add(job);
+            while (group.size() < MAX_GROUP && queue.peek() != null && queue.peek().small() && queue.peek() != STOP) {
+                group.add(queue.poll());
+            }
+            commitGroup(group);
+            group.clear();
+        }
+    }
+
+    private void commitGroup(List<Job> group) {
+        long start = Metrics.start();
+        try {
+            connection.setAutoCommit(false);
+            for (Job job : group) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    job.task.run(connection);
+                    connection.releaseSavepoint(savepoint);
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback(savepoint);
+                    e.printStackTrace();
+                }
+            }
+            connection.commit();
+            commits.incrementAndGet();
+            groupedWrites.addAndGet(group.size());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        Database.record("group commit", start);
+    }
+
+    /**
+     * Fails whatever is still queued once the writer stops, so no caller waits forever.
+     */
+    private void drop() {
+        List<Job> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Job job : left) {
+            if (job == STOP) continue;
+            if (job.small()) {
+                System.err.println("Write dropped, the writer is shut down");
+            } else {
+                job.result.completeExceptionally(new SQLException("The writer is shut down"));
+            }
+        }
+    }
+
+    String stats() {
+        return String.format("Writer: %d commits, %d small writes group-committed", commits.get(), groupedWrites.get());
+    }
+
+    /**
+     * Drains queued writes and closes the connection; called on exit.
+     */
+    void shutdown() {
+        synchronized (this) {
+            if (!stopped) queue.add(STOP);
+            stopped = true;
+        }
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
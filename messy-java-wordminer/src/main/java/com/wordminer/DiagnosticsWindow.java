@@ -0,0 +1,83 @@
+package com.wordminer;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Live view of the Metrics timers and counters, refreshed every second,
+ * with switches to turn recording off, reset it and dump it to JSON or CSV.
+ */
+class DiagnosticsWindow extends JFrame {
+    private static final int REFRESH_MS = 1000;
+
+    // Summary lines of the writer, progress tracker and lemma cache, shown above the metrics
+    private final Supplier<String> status;
+
+    private final JTextArea textArea = new JTextArea();
+    private final Timer timer = new Timer(REFRESH_MS, e -> refresh());
+
+    DiagnosticsWindow(Supplier<String> status, JFrame parent) {
+        this.status = status;
+
+        setTitle("Diagnostics");
+        setSize(900, 600);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(parent);
+
+        JCheckBox enabledBox = new JCheckBox("Record metrics", Metrics.enabled());
+        JButton resetBtn = new JButton("Reset");
+        JButton exportBtn = new JButton("Export JSON/CSV");
+        enabledBox.addActionListener(e -> Metrics.setEnabled(enabledBox.isSelected()));
+        resetBtn.addActionListener(e -> {
+            Metrics.reset();
+            refresh();
+        });
+        exportBtn.addActionListener(e -> export());
+
+        JPanel topPanel = new JPanel();
+        topPanel.add(enabledBox);
+        topPanel.add(resetBtn);
+        topPanel.add(exportBtn);
+
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+
+        add(topPanel, BorderLayout.NORTH);
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+        addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+            }
+        });
+        refresh();
+        timer.start();
+        setVisible(true);
+    }
+
+    private void refresh() {
+        int caret = textArea.getCaretPosition();
+        textArea.setText(status.get() + "\n\n" + Metrics.report());
+        textArea.setCaretPosition(Math.min(caret, textArea.getDocument().getLength()));
+    }
+
+    private void export() {
+        JFileChooser fc = new JFileChooser();
+        fc.setSelectedFile(new File("wordminer-metrics.json"));
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File file = fc.getSelectedFile();
+        try {
+            Metrics.dump(file.toPath());
+            JOptionPane.showMessageDialog(this, "Exported to:\n" + file.getAbsolutePath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Export failed: " + e.getMessage());
+        }
+    }
+}
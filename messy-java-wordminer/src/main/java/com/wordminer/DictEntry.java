@@ -1,13 +1,65 @@
 package com.wordminer;
 
-import java.util.HashSet;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
- * Dictionary entry helper class
+ * Dictionary entry helper class.
+ * Levels are a bitmask over LEVELS; the translation/phrase payload stays in the
+ * mapped snapshot and is decoded only when a popup needs it.
  */
 class DictEntry {
-    Set<String> levels = new HashSet<>();
-    Map<String, Object> data;
+    static final String[] LEVELS = {"1-middle-school", "2-high-school", "3-CET4", "4-CET6", "5-postgraduate", "6-TOEFL", "7-SAT"};
+    
+    // Recently viewed payloads, so re-opening a popup does not decode again
+    private static final int RECENT_SIZE = 32;
+    private static final Map<DictEntry, Map<String, Object>> recent = new LinkedHashMap<>(RECENT_SIZE, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<DictEntry, Map<String, Object>> eldest) {
+            return size() > RECENT_SIZE;
+        }
+    };
+    
+    byte levels;
+    DictionarySnapshot source;
+    int index;
+    
+    static int levelIndex(String level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equals(level)) return i;
+        }
+        return -1;
+    }
+    
+    void addLevel(String level) {
+        int i = levelIndex(level);
+        if (i >= 0) levels |= 1 << i;
+    }
+    
+    boolean hasLevel(int i) {
+        return (levels & (1 << i)) != 0;
+    }
+    
+    List<String> levelNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (hasLevel(i)) names.add(LEVELS[i]);
+        }
+        return names;
+    }
+    
+    Map<String, Object> data() {
+        synchronized (recent) {
+            Map<String, Object> data = recent.get(this);
+            if (data == null) {
+                data = new Gson().fromJson(source.data(index), new TypeToken<Map<String, Object>>(){}.getType());
+                recent.put(this, data);
+            }
+            return data;
+        }
+    }
 }
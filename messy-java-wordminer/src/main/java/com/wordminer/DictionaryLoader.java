@@ -0,0 +1,249 @@
+package com.wordminer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the dictionary tables from the level JSON files on first run and loads
+ * them into memory through the mapped snapshot.
+ *
+ * Tables: dict_word holds each headword once, dict_level which levels list it,
+ * dict_payload the entry JSON, shared by content hash. A word in several level
+ * files keeps all its levels; its popup data is the entry from the first level.
+ */
+class DictionaryLoader {
+    private static final int BATCH_SIZE = 1000;
+    
+    private final Connection connection;
+    private final Path dictionaryDir;
+    private final Path snapshotPath;
+    
+    // Sub-phase -> elapsed milliseconds
+    private final Map<String, Long> times;
+    
+    DictionaryLoader(Connection connection, Path dictionaryDir, Path snapshotPath, Map<String, Long> times) {
+        this.connection = connection;
+        this.dictionaryDir = dictionaryDir;
+        this.snapshotPath = snapshotPath;
+        this.times = times;
+    }
+    
+    void load(Map<String, DictEntry> dictionary) throws Exception {
+        List<MemoryPoolMXBean> heap = heapPools();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+        importMissingLevels();
+        
+        DictionarySnapshot snapshot = openSnapshot();
+        if (snapshot == null) {
+            System.err.println("Dictionary snapshot unavailable: " + snapshotPath.toAbsolutePath());
+            return;
+        }
+        
+        // Load into memory from the snapshot; payloads are decoded on demand
+        long start = System.nanoTime();
+        fill(snapshot, dictionary);
+        record("loadDictionary.loadSnapshot", start);
+        
+        // Import, snapshot build and fill together
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.println(String.format("Dictionary loaded: %d words, peak heap %.1f MB",
+            dictionary.size(), peak / 1e6));
+    }
+    
+    void importMissingLevels() throws Exception {
+        for (String level : DictEntry.LEVELS) {
+            // Check if already loaded
+            PreparedStatement check = Database.prepare(connection, "SELECT 1 FROM dict_loaded WHERE level=?");
+            check.setString(1, level);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) continue;
+            }
+            
+            // Load from JSON
+            File jsonFile = dictionaryDir.resolve(level + ".json").toFile();
+            if (!jsonFile.exists()) continue;
+            
+            long start = System.nanoTime();
+            importLevel(level, jsonFile);
+            record("loadDictionary.json:" + level, start);
+        }
+    }
+    
+    /**
+     * Streams one level file into the tables in a single transaction with batched statements.
+     * Only one entry is parsed at a time and at most a batch of them waits for the insert,
+     * so memory stays flat however large the file is. Ids are resolved by the inserts
+     * themselves; a duplicate headword or payload is ignored by its unique key.
+     */
+    void importLevel(String level, File jsonFile) throws Exception {
+        int entries = 0;
+        
+        connection.setAutoCommit(false);
+        // A level file can list a word twice; the first entry wins
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(jsonFile.toPath(), StandardCharsets.UTF_8));
+             PreparedStatement payload = connection.prepareStatement("INSERT OR IGNORE INTO dict_payload (hash, data) VALUES (?,?)");
+             PreparedStatement word = connection.prepareStatement(
+                 "INSERT OR IGNORE INTO dict_word (word, payload_id) VALUES (?, (SELECT id FROM dict_payload WHERE hash=?))");
+             PreparedStatement member = connection.prepareStatement(
+                 "INSERT OR IGNORE INTO dict_level (word_id, level, payload_id) VALUES "
+                 + "((SELECT id FROM dict_word WHERE word=?), ?, (SELECT id FROM dict_payload WHERE hash=?))")) {
+            int pending = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                JsonElement entry = JsonParser.parseReader(reader);
+                String headword = entry.getAsJsonObject().get("word").getAsString();
+                String data = entry.toString();
+                String hash = ArticleImporter.contentHash(data);
+                
+                payload.setString(1, hash);
+                payload.setString(2, data);
+                payload.addBatch();
+                word.setString(1, headword);
+                word.setString(2, hash);
+                word.addBatch();
+                member.setString(1, headword);
+                member.setString(2, level);
+                member.setString(3, hash);
+                member.addBatch();
+                entries++;
+                // In this order, so the lookups see the rows the batch before them added
+                if (++pending == BATCH_SIZE) {
+                    payload.executeBatch();
+                    word.executeBatch();
+                    member.executeBatch();
+                    pending = 0;
+                }
+            }
+            reader.endArray();
+            if (reader.peek() != JsonToken.END_DOCUMENT) throw new IOException("Unexpected data after the entries of " + jsonFile);
+            payload.executeBatch();
+            word.executeBatch();
+            member.executeBatch();
+            
+            // Payloads of repeated headwords are referenced by nothing
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM dict_payload WHERE id NOT IN (SELECT payload_id FROM dict_level)");
+            }
+            
+            // Mark as loaded
+            PreparedStatement markLoaded = Database.prepare(connection, "INSERT INTO dict_loaded VALUES (?)");
+            markLoaded.setString(1, level);
+            markLoaded.executeUpdate();
+            
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        
+        System.out.println(String.format("Imported %s: %d entries, %.1f MB file",
+            level, entries, jsonFile.length() / 1e6));
+    }
+    
+    /**
+     * Heap pools; the sum of their peaks is an upper bound of the peak heap use.
+     */
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) pools.add(pool);
+        }
+        return pools;
+    }
+    
+    /**
+     * Maps the snapshot, rebuilding it first when the dictionary table changed.
+     */
+    DictionarySnapshot openSnapshot() throws Exception {
+        long signature = signature();
+        DictionarySnapshot snapshot = DictionarySnapshot.open(snapshotPath, signature);
+        if (snapshot == null) {
+            long start = System.nanoTime();
+            buildSnapshot(signature);
+            record("loadDictionary.buildSnapshot", start);
+            snapshot = DictionarySnapshot.open(snapshotPath, signature);
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Changes whenever a level is added to the dictionary table, which invalidates the snapshot.
+     */
+    long signature() throws SQLException {
+        StringBuilder sig = new StringBuilder();
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT level FROM dict_loaded ORDER BY level")) {
+                while (rs.next()) {
+                    sig.append(rs.getString(1)).append(';');
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM dict_level")) {
+                if (rs.next()) {
+                    sig.append(rs.getLong(1));
+                }
+            }
+        }
+        return sig.toString().hashCode() * 31L + sig.length();
+    }
+    
+    /**
+     * One row per headword with all its levels, from a single join, streamed straight
+     * into the snapshot file; no row outlives its write.
+     */
+    void buildSnapshot(long signature) throws Exception {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT w.word, group_concat(m.level, ';'), p.data FROM dict_word w "
+                 + "JOIN dict_level m ON m.word_id=w.id JOIN dict_payload p ON p.id=w.payload_id GROUP BY w.id");
+             DictionarySnapshot.Writer writer = new DictionarySnapshot.Writer(snapshotPath, signature)) {
+            while (rs.next()) {
+                int levels = 0;
+                for (String level : rs.getString(2).split(";")) {
+                    int l = DictEntry.levelIndex(level);
+                    if (l >= 0) levels |= 1 << l;
+                }
+                writer.add(rs.getString(1), levels, rs.getString(3));
+            }
+            writer.commit();
+        }
+    }
+    
+    static void fill(DictionarySnapshot source, Map<String, DictEntry> dictionary) {
+        for (int i = 0; i < source.size(); i++) {
+            DictEntry entry = new DictEntry();
+            entry.levels = (byte) source.levels(i);
+            entry.source = source;
+            entry.index = i;
+            String word = source.word(i);
+            dictionary.put(word, entry);
+            LemmaIds.setLevels(LemmaIds.id(word), entry.levels);
+        }
+    }
+    
+    private void record(String phase, long start) {
+        Metrics.record("startup: " + phase, start);
+        if (times != null) {
+            times.put(phase, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
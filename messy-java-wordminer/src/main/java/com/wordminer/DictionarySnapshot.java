@@ -0,0 +1,149 @@
+package com.wordminer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Prebuilt, memory-mapped copy of the dictionary table for fast cold start.
+ *
+ * Layout: header (magic, version, signature, entry count), then a lemma table with
+ * one fixed-size record per headword, then a string pool. Each record holds
+ * offset/length pairs into the pool for word and data, and the level bitmask.
+ */
+class DictionarySnapshot {
+    private static final int MAGIC = 0x574D4453; // "WMDS"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    private static final int RECORD_SIZE = 5 * 4;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int poolStart;
+
+    private DictionarySnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.count = buffer.getInt(16);
+        this.poolStart = HEADER_SIZE + count * RECORD_SIZE;
+    }
+
+    /**
+     * Maps the snapshot file, or returns null when it is missing or was built
+     * for a different dictionary signature. The header is checked before mapping,
+     * so a stale file is never mapped and can be replaced right away.
+     */
+    static DictionarySnapshot open(Path path, long signature) {
+        if (!Files.exists(path)) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {}
+            if (header.hasRemaining()
+                    || header.getInt(0) != MAGIC
+                    || header.getInt(4) != VERSION
+                    || header.getLong(8) != signature) {
+                return null;
+            }
+            return new DictionarySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Streams headwords into a new snapshot file. Records go to the file as they come and
+     * the string pool to a side file appended at the end, so memory stays flat however
+     * large the dictionary is. The file replaces the old snapshot only on commit().
+     */
+    static class Writer implements Closeable {
+        private final Path path;
+        private final Path tmp;
+        private final Path poolTmp;
+        private final DataOutputStream records;
+        private final DataOutputStream pool;
+        private int count;
+        private int offset;
+        private boolean committed;
+
+        Writer(Path path, long signature) throws IOException {
+            this.path = path;
+            tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            poolTmp = path.resolveSibling(path.getFileName() + ".pool.tmp");
+            records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+            pool = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(poolTmp)));
+            records.writeInt(MAGIC);
+            records.writeInt(VERSION);
+            records.writeLong(signature);
+            // Entry count, filled in by commit()
+            records.writeInt(0);
+        }
+
+        void add(String word, int levels, String data) throws IOException {
+            byte[] wordBytes = word.getBytes(StandardCharsets.UTF_8);
+            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+            records.writeInt(offset);
+            records.writeInt(wordBytes.length);
+            offset += wordBytes.length;
+            records.writeInt(offset);
+            records.writeInt(dataBytes.length);
+            offset += dataBytes.length;
+            records.writeInt(levels & 0xFF);
+            pool.write(wordBytes);
+            pool.write(dataBytes);
+            count++;
+        }
+
+        /**
+         * Appends the pool, fills in the count and moves the file into place.
+         */
+        void commit() throws IOException {
+            pool.close();
+            Files.copy(poolTmp, records);
+            records.close();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, count), 16);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            records.close();
+            pool.close();
+            Files.deleteIfExists(poolTmp);
+            if (!committed) Files.deleteIfExists(tmp);
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    String word(int index) {
+        return field(index, 0);
+    }
+
+    String data(int index) {
+        return field(index, 1);
+    }
+
+    /**
+     * Bitmask over DictEntry.LEVELS
+     */
+    int levels(int index) {
+        return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE + 16);
+    }
+
+    private String field(int index, int field) {
+        int record = HEADER_SIZE + index * RECORD_SIZE + field * 8;
+        int start = poolStart + buffer.getInt(record);
+        int length = buffer.getInt(record + 4);
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
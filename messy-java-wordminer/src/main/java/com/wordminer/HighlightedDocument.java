@@ -0,0 +1,126 @@
+package com.wordminer;
+
+import javax.swing.text.*;
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Styled document of an article colored by label, plus a per-lemma index of
+ * the token ranges so one label change restyles only that lemma.
+ * Lemmas are LemmaIds ids and labels are read from there.
+ */
+class HighlightedDocument {
+    static final SimpleAttributeSet DEFAULT_STYLE = colorStyle(Color.BLACK);
+    static final SimpleAttributeSet KNOWN_STYLE = colorStyle(Color.GRAY);
+    static final SimpleAttributeSet UNKNOWN_STYLE = colorStyle(new Color(200, 50, 50));
+    static final SimpleAttributeSet UNCERTAIN_STYLE = colorStyle(new Color(200, 100, 0));
+    
+    final DefaultStyledDocument document = new DefaultStyledDocument();
+    
+    // Content offset of document position 0; non-zero when only some pages are shown
+    final int offset;
+
+    // Indexed by lemma id, long enough for the highest id in the shown tokens
+    private Ranges[] lemmaRanges;
+    
+    private HighlightedDocument(int offset) {
+        this.offset = offset;
+    }
+    
+    /**
+     * Builds the document from the stored analysis (no NLP) with a single insert.
+     * Callers should build it detached and attach it afterwards so the view lays it out once.
+     */
+    static HighlightedDocument build(String content, ArticleAnalysis analysis) {
+        return build(content, analysis, 0, content.length(), 0, analysis.size);
+    }
+    
+    /**
+     * Document of content[start, end), styling tokens firstToken until endToken.
+     */
+    static HighlightedDocument build(CharSequence content, ArticleAnalysis analysis, int start, int end,
+                                     int firstToken, int endToken) {
+        HighlightedDocument highlighted = new HighlightedDocument(start);
+        
+        int maxId = -1;
+        for (int i = firstToken; i < endToken; i++) {
+            maxId = Math.max(maxId, analysis.ids[i]);
+        }
+        Ranges[] lemmaRanges = highlighted.lemmaRanges = new Ranges[maxId + 1];
+        
+        // Text comes straight from the content, so document and content offsets differ only by start;
+        // a token cut by the end of a block-stored page is styled up to the end
+        for (int i = firstToken; i < endToken; i++) {
+            int id = analysis.ids[i];
+            if (id >= 0) {
+                if (lemmaRanges[id] == null) lemmaRanges[id] = new Ranges();
+                lemmaRanges[id].add(analysis.begins[i] - start, Math.min(analysis.ends[i], end) - analysis.begins[i]);
+            }
+        }
+        
+        try {
+            highlighted.document.insertString(0, content.subSequence(start, end).toString(), DEFAULT_STYLE);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        
+        for (int id = 0; id < lemmaRanges.length; id++) {
+            if (lemmaRanges[id] == null) continue;
+            AttributeSet style = styleFor(id);
+            if (style != DEFAULT_STYLE) {
+                lemmaRanges[id].apply(highlighted.document, style);
+            }
+        }
+        return highlighted;
+    }
+    
+    /**
+     * Re-colors only the occurrences of one lemma; text, caret and scroll stay untouched.
+     */
+    void restyle(String lemma) {
+        restyle(LemmaIds.find(lemma));
+    }
+    
+    void restyle(int id) {
+        if (id >= 0 && id < lemmaRanges.length && lemmaRanges[id] != null) {
+            lemmaRanges[id].apply(document, styleFor(id));
+        }
+    }
+    
+    private static AttributeSet styleFor(int id) {
+        switch (LemmaIds.label(id)) {
+            case Tokens.KNOWN: return KNOWN_STYLE;
+            case Tokens.UNKNOWN: return UNKNOWN_STYLE;
+            case Tokens.UNCERTAIN: return UNCERTAIN_STYLE;
+            default: return DEFAULT_STYLE;
+        }
+    }
+    
+    private static SimpleAttributeSet colorStyle(Color color) {
+        SimpleAttributeSet style = new SimpleAttributeSet();
+        StyleConstants.setForeground(style, color);
+        return style;
+    }
+    
+    /**
+     * Flat (start, length) pairs of one lemma's occurrences in the document
+     */
+    private static class Ranges {
+        int[] data = new int[4];
+        int size;
+        
+        void add(int start, int length) {
+            if (size + 2 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = start;
+            data[size++] = length;
+        }
+        
+        void apply(StyledDocument doc, AttributeSet style) {
+            for (int i = 0; i < size; i += 2) {
+                doc.setCharacterAttributes(data[i], data[i + 1], style, true);
+            }
+        }
+    }
+}
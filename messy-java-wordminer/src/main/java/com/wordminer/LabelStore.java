@@ -0,0 +1,107 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The user's labels in memory, safe to read from any thread. Reads take no lock: by lemma
+ * from a concurrent map, by id from the LemmaIds label bytes. Changes are serialized and
+ * reported to listeners with the ids they touched and their old and new labels, so open
+ * windows update only those lemmas. Persisting a change is up to the caller.
+ */
+class LabelStore {
+
+    interface Listener {
+        /**
+         * Called on the thread that made the change, after it is visible to readers.
+         * Lemma ids[i] went from Tokens label index previous[i] to current[i].
+         */
+        void labelsChanged(int[] ids, int[] previous, int[] current);
+    }
+
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Reads the user_words table in, without notifying.
+     */
+    synchronized LabelStore load(Connection c) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "SELECT lemma, label FROM user_words");
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String lemma = Tokens.canonical(rs.getString(1));
+                labels.put(lemma, rs.getString(2));
+                LemmaIds.setLabel(LemmaIds.id(lemma), Tokens.labelIndex(rs.getString(2)));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Label of the lemma, or null when it has none.
+     */
+    String get(String lemma) {
+        return labels.get(lemma);
+    }
+
+    /**
+     * Tokens label index of a lemma id
+     */
+    int label(int id) {
+        return LemmaIds.label(id);
+    }
+
+    int size() {
+        return labels.size();
+    }
+
+    /**
+     * Read-only live view; iterating it while labels change is safe.
+     */
+    Map<String, String> view() {
+        return Collections.unmodifiableMap(labels);
+    }
+
+    void put(String lemma, String label) {
+        putAll(Collections.singletonMap(lemma, label));
+    }
+
+    /**
+     * Applies all changes, then notifies once.
+     */
+    void putAll(Map<String, String> changes) {
+        if (changes.isEmpty()) return;
+        int[] ids = new int[changes.size()];
+        int[] previous = new int[changes.size()];
+        int[] current = new int[changes.size()];
+        synchronized (this) {
+            int n = 0;
+            for (Map.Entry<String, String> change : changes.entrySet()) {
+                String lemma = Tokens.canonical(change.getKey());
+                int id = LemmaIds.id(lemma);
+                ids[n] = id;
+                previous[n] = LemmaIds.label(id);
+                current[n] = Tokens.labelIndex(change.getValue());
+                labels.put(lemma, change.getValue());
+                LemmaIds.setLabel(id, current[n++]);
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.labelsChanged(ids, previous, current);
+        }
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+}
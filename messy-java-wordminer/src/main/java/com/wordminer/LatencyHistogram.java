@@ -0,0 +1,67 @@
+package com.wordminer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Percentiles are bucket upper bounds, so they are accurate to a factor of two.
+ */
+class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    // Bucket b counts samples below 2^b microseconds
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Zeroes the histogram; samples recorded meanwhile may be partly kept
+     */
+    void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets.set(b, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    double meanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / 1000.0 / n;
+    }
+
+    long maxMicros() {
+        return maxNanos.get() / 1000;
+    }
+
+    /**
+     * Upper bound in microseconds below which the given fraction of samples fall
+     */
+    long percentileMicros(double fraction) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long target = (long) Math.ceil(n * fraction);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets.get(b);
+            if (seen >= target) return 1L << b;
+        }
+        return maxMicros();
+    }
+}
@@ -0,0 +1,183 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded surface form -> lemma cache in front of a lemmatizer backend, kept in the
+ * lemma_cache table between runs. Rows are keyed by the backend stamp, so switching
+ * backend or pipeline config never serves stale lemmas.
+ *
+ * Single-word lookups (the reading popup) are answered from the cache. Whole-article
+ * analysis still runs the backend, since CoreNLP needs sentence context for POS, but
+ * every token it produces is fed into the cache.
+ */
+class LemmaCache implements Lemmatizer {
+    // Entries kept in memory and in the table, -Dwordminer.lemmaCacheSize=N
+    static final int MAX_ENTRIES = Integer.getInteger("wordminer.lemmaCacheSize", 50_000);
+
+    // New entries written per flush
+    private static final int FLUSH_THRESHOLD = 500;
+
+    private final Lemmatizer backend;
+    private final DbWriter dbWriter;
+    private final String stamp;
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, String> lemmas = new LinkedHashMap<>(1024, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Map<String, String> unsaved = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong seeded = new AtomicLong();
+
+    LemmaCache(Lemmatizer backend, DbWriter dbWriter) {
+        this.backend = backend;
+        this.dbWriter = dbWriter;
+        this.stamp = backend.stamp();
+    }
+
+    /**
+     * Loads the saved entries of this backend, most recently used last.
+     */
+    LemmaCache load() throws SQLException {
+        dbWriter.call(c -> {
+            PreparedStatement ps = Database.prepare(c,
+                "SELECT surface, lemma FROM lemma_cache WHERE stamp=? ORDER BY rowid DESC LIMIT ?");
+            ps.setString(1, stamp);
+            ps.setInt(2, MAX_ENTRIES);
+            List<String[]> rows = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new String[]{rs.getString(1), rs.getString(2)});
+                }
+            }
+            synchronized (this) {
+                for (int i = rows.size() - 1; i >= 0; i--) {
+                    lemmas.put(rows.get(i)[0], Tokens.lemma(rows.get(i)[1]));
+                }
+            }
+            return null;
+        });
+        return this;
+    }
+
+    public String name() {
+        return backend.name();
+    }
+
+    public String stamp() {
+        return stamp;
+    }
+
+    public ArticleAnalysis analyze(CharSequence text) {
+        long start = Metrics.start();
+        ArticleAnalysis analysis = backend.analyze(text);
+        Metrics.record("nlp: analyze", start);
+        Metrics.count("nlp: tokens analyzed", analysis.size);
+        synchronized (this) {
+            for (int i = 0; i < analysis.size; i++) {
+                String word = analysis.words[i];
+                if (Tokens.isWord(word) && !lemmas.containsKey(word)) {
+                    remember(word, analysis.lemmas[i]);
+                    seeded.incrementAndGet();
+                }
+            }
+        }
+        flushIfFull();
+        return analysis;
+    }
+
+    public String lemma(String word) {
+        synchronized (this) {
+            String lemma = lemmas.get(word);
+            if (lemma != null) {
+                hits.incrementAndGet();
+                Metrics.count("nlp: lemma cache hits", 1);
+                return lemma;
+            }
+        }
+        misses.incrementAndGet();
+        Metrics.count("nlp: lemma cache misses", 1);
+        long start = Metrics.start();
+        String lemma = backend.lemma(word);
+        Metrics.record("nlp: backend lemma", start);
+        synchronized (this) {
+            remember(word, lemma);
+        }
+        flushIfFull();
+        return lemma;
+    }
+
+    private void remember(String word, String lemma) {
+        lemmas.put(word, lemma);
+        unsaved.put(word, lemma);
+    }
+
+    private void flushIfFull() {
+        boolean full;
+        synchronized (this) {
+            full = unsaved.size() >= FLUSH_THRESHOLD;
+        }
+        if (full) flush();
+    }
+
+    /**
+     * Queues the unsaved entries as one small write and trims the table to the bound.
+     */
+    void flush() {
+        Map<String, String> batch;
+        synchronized (this) {
+            if (unsaved.isEmpty()) return;
+            batch = new HashMap<>(unsaved);
+            unsaved.clear();
+        }
+        dbWriter.execute(c -> {
+            save(c, batch);
+            return null;
+        });
+    }
+
+    private void save(Connection c, Map<String, String> batch) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "INSERT OR REPLACE INTO lemma_cache (stamp, surface, lemma) VALUES (?,?,?)");
+        for (Map.Entry<String, String> entry : batch.entrySet()) {
+            ps.setString(1, stamp);
+            ps.setString(2, entry.getKey());
+            ps.setString(3, entry.getValue());
+            ps.addBatch();
+        }
+        ps.executeBatch();
+
+        // REPLACE gives a row a new rowid, so the highest rowids are the most recent entries
+        PreparedStatement trim = Database.prepare(c,
+            "DELETE FROM lemma_cache WHERE rowid <= (SELECT MAX(rowid) FROM lemma_cache) - ?");
+        trim.setInt(1, MAX_ENTRIES);
+        trim.executeUpdate();
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    double hitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    synchronized String stats() {
+        return String.format("Lemma cache: %d entries, %d hits, %d misses (%.1f%% hit rate), %d seeded from analysis",
+            lemmas.size(), hits.get(), misses.get(), hitRate() * 100, seeded.get());
+    }
+}
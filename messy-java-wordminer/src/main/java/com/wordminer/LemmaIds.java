@@ -0,0 +1,102 @@
+package com.wordminer;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense int ids for lemmas, shared by the dictionary, the user labels and the token
+ * streams of ArticleAnalysis. Levels and labels are byte arrays indexed by id, so
+ * classifying a token is two array reads instead of String-keyed map lookups.
+ * Ids are handed out in first-seen order and live only as long as the process.
+ */
+final class LemmaIds {
+    // Set in levels() for lemmas in the dictionary; the level bits are below it
+    static final int IN_DICTIONARY = 1 << DictEntry.LEVELS.length;
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Grown and written under the class lock. An id is published in ids only after the
+    // arrays cover it, so a reader holding an id never indexes past their end.
+    private static volatile String[] lemmas = new String[INITIAL_CAPACITY];
+    private static volatile byte[] levels = new byte[INITIAL_CAPACITY];
+    private static volatile byte[] labels = unlabeled(new byte[INITIAL_CAPACITY], 0);
+    private static volatile int size;
+
+    private LemmaIds() {}
+
+    /**
+     * Id of the lemma, assigning the next one on first sight.
+     */
+    static int id(String lemma) {
+        Integer id = ids.get(lemma);
+        return id != null ? id : assign(lemma);
+    }
+
+    /**
+     * Id of the lemma, or -1 when it was never seen.
+     */
+    static int find(String lemma) {
+        Integer id = ids.get(lemma);
+        return id == null ? -1 : id;
+    }
+
+    private static synchronized int assign(String lemma) {
+        Integer existing = ids.get(lemma);
+        if (existing != null) return existing;
+
+        if (size == lemmas.length) {
+            int capacity = size * 2;
+            lemmas = Arrays.copyOf(lemmas, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            labels = unlabeled(Arrays.copyOf(labels, capacity), size);
+        }
+        int id = size++;
+        lemmas[id] = Tokens.canonical(lemma);
+        ids.put(lemmas[id], id);
+        return id;
+    }
+
+    static String lemma(int id) {
+        return lemmas[id];
+    }
+
+    /**
+     * Ids handed out so far; every id is below this.
+     */
+    static int size() {
+        return size;
+    }
+
+    /**
+     * Level bitmask as in DictEntry, plus IN_DICTIONARY; 0 for lemmas outside the dictionary.
+     */
+    static int levels(int id) {
+        return levels[id] & 0xFF;
+    }
+
+    static boolean inDictionary(int id) {
+        return (levels[id] & IN_DICTIONARY) != 0;
+    }
+
+    static synchronized void setLevels(int id, int levelMask) {
+        levels[id] = (byte) (levelMask | IN_DICTIONARY);
+    }
+
+    /**
+     * Tokens.KNOWN .. Tokens.UNLABELED
+     */
+    static int label(int id) {
+        return labels[id];
+    }
+
+    static synchronized void setLabel(int id, int label) {
+        labels[id] = (byte) label;
+    }
+
+    private static byte[] unlabeled(byte[] labels, int from) {
+        Arrays.fill(labels, from, labels.length, (byte) Tokens.UNLABELED);
+        return labels;
+    }
+}
@@ -0,0 +1,37 @@
+package com.wordminer;
+
+import java.util.Map;
+
+/**
+ * Splits text into tokens with lowercase lemmas.
+ * Backend is chosen with -Dwordminer.lemmatizer=corenlp|lookup (default corenlp).
+ */
+interface Lemmatizer {
+    
+    String name();
+    
+    /**
+     * Identifies the backend and its configuration; a stored analysis with another stamp is re-analyzed.
+     */
+    String stamp();
+    
+    /**
+     * Tokens of the text, which may be the import's read buffer. Backends that need a
+     * String copy it; LookupLemmatizer reads it in place.
+     */
+    ArticleAnalysis analyze(CharSequence text);
+    
+    /**
+     * Lowercase lemma of a single word
+     */
+    String lemma(String word);
+    
+    static Lemmatizer fromConfig(Map<String, DictEntry> dictionary) {
+        String backend = System.getProperty("wordminer.lemmatizer", "corenlp");
+        switch (backend) {
+            case "corenlp": return new CoreNlpLemmatizer();
+            case "lookup": return new LookupLemmatizer(dictionary);
+            default: throw new IllegalArgumentException("Unknown lemmatizer backend: " + backend);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.wordminer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lightweight backend: a character tokenizer plus an inflection -> lemma table generated
+ * from the dictionary headwords, irregular forms from irregular-forms.txt and a few
+ * suffix rules. No POS tags; loads in milliseconds.
+ */
+class LookupLemmatizer implements Lemmatizer {
+    // Bump when the rules or the irregular list change
+    private static final int RULES_VERSION = 1;
+    
+    private final Map<String, DictEntry> dictionary;
+    private final Map<String, String> irregular = new HashMap<>();
+    private final Map<String, String> inflections = new HashMap<>();
+    
+    LookupLemmatizer(Map<String, DictEntry> dictionary) {
+        this.dictionary = dictionary;
+        loadIrregular();
+        for (Map.Entry<String, DictEntry> entry : dictionary.entrySet()) {
+            String headword = entry.getKey();
+            if (Tokens.isWord(headword)) {
+                addInflections(headword, isAdjective(entry.getValue()));
+            }
+        }
+    }
+    
+    public String name() {
+        return "lookup";
+    }
+    
+    public String stamp() {
+        return name() + ";" + RULES_VERSION + ";" + dictionary.size();
+    }
+    
+    public ArticleAnalysis analyze(CharSequence text) {
+        ArticleAnalysis a = new ArticleAnalysis(Math.max(16, text.length() / 5), stamp());
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (!Character.isLetterOrDigit(c)) {
+                a = add(a, text, i, i + 1);
+                i++;
+                continue;
+            }
+            
+            // Letters/digits, with inner hyphens kept inside the token ("well-known")
+            int j = i + 1;
+            while (j < n && (Character.isLetterOrDigit(text.charAt(j))
+                    || (text.charAt(j) == '-' && j + 1 < n && Character.isLetterOrDigit(text.charAt(j + 1))))) {
+                j++;
+            }
+            
+            // Split clitics the way CoreNLP does: do|n't, it|'s, we|'re
+            if (j + 1 < n && isApostrophe(text.charAt(j)) && Character.isLetter(text.charAt(j + 1))) {
+                int k = j + 1;
+                while (k < n && Character.isLetter(text.charAt(k))) k++;
+                String clitic = text.subSequence(j + 1, k).toString().toLowerCase();
+                if (clitic.equals("t") && j - 1 > i && Character.toLowerCase(text.charAt(j - 1)) == 'n') {
+                    a = add(a, text, i, j - 1);
+                    a = add(a, text, j - 1, k);
+                } else if (clitic.equals("s") || clitic.equals("re") || clitic.equals("ll")
+                        || clitic.equals("ve") || clitic.equals("d") || clitic.equals("m")) {
+                    a = add(a, text, i, j);
+                    a = add(a, text, j, k);
+                } else {
+                    a = add(a, text, i, k);
+                }
+                i = k;
+            } else {
+                a = add(a, text, i, j);
+                i = j;
+            }
+        }
+        return a;
+    }
+    
+    public String lemma(String word) {
+        String lower = Tokens.lemma(word.replace('’', '\''));
+        String lemma = irregular.get(lower);
+        if (lemma != null) return lemma;
+        if (dictionary.containsKey(lower)) return lower;
+        lemma = inflections.get(lower);
+        if (lemma != null) return lemma;
+        return suffixRules(lower);
+    }
+    
+    private ArticleAnalysis add(ArticleAnalysis a, CharSequence text, int begin, int end) {
+        if (a.size == a.begins.length) {
+            ArticleAnalysis grown = new ArticleAnalysis(a.size * 2, a.stamp);
+            for (int i = 0; i < a.size; i++) {
+                grown.add(a.begins[i], a.ends[i], a.words[i], a.lemmas[i], a.tags[i]);
+            }
+            a = grown;
+        }
+        String word = text.subSequence(begin, end).toString();
+        a.add(begin, end, word, lemma(word), "");
+        return a;
+    }
+    
+    /**
+     * Fallback for words the table does not know: strip a regular suffix when that yields a headword.
+     */
+    private String suffixRules(String word) {
+        String[][] rules = {
+            {"ies", "y"}, {"ied", "y"}, {"ying", "ie"}, {"sses", "ss"}, {"ches", "ch"}, {"shes", "sh"},
+            {"xes", "x"}, {"es", "e"}, {"s", ""}, {"ed", "e"}, {"ed", ""}, {"ing", "e"}, {"ing", ""}
+        };
+        for (String[] rule : rules) {
+            if (word.length() > rule[0].length() + 1 && word.endsWith(rule[0])) {
+                String stem = word.substring(0, word.length() - rule[0].length()) + rule[1];
+                if (dictionary.containsKey(stem)) return Tokens.canonical(stem);
+            }
+        }
+        // Unknown nouns still lose a plain plural s: startups -> startup, but not bus or analysis
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")
+                && !word.endsWith("is") && !word.endsWith("ies") && !sibilantPlural(word) && Tokens.isWord(word)) {
+            return Tokens.canonical(word.substring(0, word.length() - 1));
+        }
+        return word;
+    }
+    
+    private void addInflections(String h, boolean adjective) {
+        char last = h.charAt(h.length() - 1);
+        boolean consonantY = last == 'y' && h.length() > 1 && !isVowel(h.charAt(h.length() - 2));
+        String base = consonantY ? h.substring(0, h.length() - 1) : h;
+        
+        // Plural / third person
+        if (consonantY) {
+            put(base + "ies", h);
+        } else if (h.endsWith("s") || h.endsWith("x") || h.endsWith("z") || h.endsWith("ch") || h.endsWith("sh")) {
+            put(h + "es", h);
+        } else {
+            put(h + "s", h);
+        }
+        
+        // Past and participles
+        String doubled = doublesFinalConsonant(h) ? h + last : h;
+        if (last == 'e') {
+            put(h + "d", h);
+            put(h.substring(0, h.length() - 1) + "ing", h);
+        } else if (consonantY) {
+            put(base + "ied", h);
+            put(h + "ing", h);
+        } else {
+            put(doubled + "ed", h);
+            put(doubled + "ing", h);
+            put(h + "ed", h);
+            put(h + "ing", h);
+        }
+        
+        // Comparatives only for adjectives, otherwise "singer" would become "sing"
+        if (adjective) {
+            if (last == 'e') {
+                put(h + "r", h);
+                put(h + "st", h);
+            } else if (consonantY) {
+                put(base + "ier", h);
+                put(base + "iest", h);
+            } else {
+                put(doubled + "er", h);
+                put(doubled + "est", h);
+            }
+        }
+    }
+    
+    private void put(String form, String lemma) {
+        if (!dictionary.containsKey(form)) {
+            inflections.putIfAbsent(form, lemma);
+        }
+    }
+    
+    /**
+     * Short consonant-vowel-consonant words double the last letter: stop -> stopped
+     */
+    private static boolean doublesFinalConsonant(String h) {
+        int n = h.length();
+        if (n < 3 || n > 4) return false;
+        char c1 = h.charAt(n - 3), v = h.charAt(n - 2), c2 = h.charAt(n - 1);
+        return !isVowel(c1) && isVowel(v) && !isVowel(c2) && c2 != 'w' && c2 != 'x' && c2 != 'y';
+    }
+    
+    private static boolean sibilantPlural(String word) {
+        return word.endsWith("ses") || word.endsWith("xes") || word.endsWith("zes")
+            || word.endsWith("ches") || word.endsWith("shes");
+    }
+    
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+    
+    private static boolean isApostrophe(char c) {
+        return c == '\'' || c == '’';
+    }
+    
+    private static boolean isAdjective(DictEntry entry) {
+        return entry.source != null && entry.source.data(entry.index).contains("\"type\":\"adj\"");
+    }
+    
+    private void loadIrregular() {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                LookupLemmatizer.class.getResourceAsStream("irregular-forms.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                int colon = line.indexOf(':');
+                String lemma = Tokens.canonical(line.substring(0, colon).trim());
+                for (String form : line.substring(colon + 1).trim().split("\\s+")) {
+                    irregular.put(form, lemma);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
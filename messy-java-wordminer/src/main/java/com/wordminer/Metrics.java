@@ -0,0 +1,133 @@
+package com.wordminer;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency histograms and counters, keyed by "area: name"
+ * ("startup: loadDictionary", "import: analyze", "sql: SELECT articles", ...).
+ *
+ * Off with -Dwordminer.metrics=false or from the diagnostics window; then start()
+ * returns 0 without reading the clock and record() and count() return at once.
+ */
+final class Metrics {
+    private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty("wordminer.metrics", "true"));
+
+    private static final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    static boolean enabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Start time for record(), or 0 when disabled.
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    static void record(String timer, long start) {
+        if (start == 0 || !enabled) return;
+        histogram(timer).record(System.nanoTime() - start);
+    }
+
+    static void count(String counter, long n) {
+        if (!enabled) return;
+        counters.computeIfAbsent(counter, k -> new LongAdder()).add(n);
+    }
+
+    static LatencyHistogram histogram(String timer) {
+        return timers.computeIfAbsent(timer, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Zeroes everything; histograms stay registered, since cached statements hold on to theirs.
+     */
+    static void reset() {
+        timers.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Timers in name order, then counters; microseconds throughout.
+     */
+    static String report() {
+        StringBuilder report = new StringBuilder(String.format("%-44s %8s %10s %8s %8s %8s %10s%n",
+            "Timer (us)", "count", "mean", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> row : new TreeMap<>(timers).entrySet()) {
+            LatencyHistogram h = row.getValue();
+            if (h.count() == 0) continue;
+            report.append(String.format("%-44s %8d %10.1f %8d %8d %8d %10d%n", row.getKey(), h.count(), h.meanMicros(),
+                h.percentileMicros(0.5), h.percentileMicros(0.95), h.percentileMicros(0.99), h.maxMicros()));
+        }
+        report.append(String.format("%n%-44s %12s%n", "Counter", "value"));
+        for (Map.Entry<String, LongAdder> row : new TreeMap<>(counters).entrySet()) {
+            report.append(String.format("%-44s %12d%n", row.getKey(), row.getValue().sum()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes all metrics as JSON, or as CSV when the file name ends in .csv.
+     */
+    static void dump(Path file) throws IOException {
+        if (file.getFileName().toString().toLowerCase().endsWith(".csv")) {
+            dumpCsv(file);
+        } else {
+            dumpJson(file);
+        }
+    }
+
+    private static void dumpJson(Path file) throws IOException {
+        JsonObject root = new JsonObject();
+        JsonObject timerJson = new JsonObject();
+        for (Map.Entry<String, LatencyHistogram> row : new TreeMap<>(timers).entrySet()) {
+            LatencyHistogram h = row.getValue();
+            JsonObject t = new JsonObject();
+            t.addProperty("count", h.count());
+            t.addProperty("meanMicros", h.meanMicros());
+            t.addProperty("p50Micros", h.percentileMicros(0.5));
+            t.addProperty("p95Micros", h.percentileMicros(0.95));
+            t.addProperty("p99Micros", h.percentileMicros(0.99));
+            t.addProperty("maxMicros", h.maxMicros());
+            timerJson.add(row.getKey(), t);
+        }
+        JsonObject counterJson = new JsonObject();
+        for (Map.Entry<String, LongAdder> row : new TreeMap<>(counters).entrySet()) {
+            counterJson.addProperty(row.getKey(), row.getValue().sum());
+        }
+        root.add("timers", timerJson);
+        root.add("counters", counterJson);
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(root), StandardCharsets.UTF_8);
+    }
+
+    private static void dumpCsv(Path file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            pw.println("kind,name,count,mean_us,p50_us,p95_us,p99_us,max_us");
+            for (Map.Entry<String, LatencyHistogram> row : new TreeMap<>(timers).entrySet()) {
+                LatencyHistogram h = row.getValue();
+                pw.println(String.format(Locale.ROOT, "timer,\"%s\",%d,%.1f,%d,%d,%d,%d", row.getKey(), h.count(), h.meanMicros(),
+                    h.percentileMicros(0.5), h.percentileMicros(0.95), h.percentileMicros(0.99), h.maxMicros()));
+            }
+            for (Map.Entry<String, LongAdder> row : new TreeMap<>(counters).entrySet()) {
+                pw.println(String.format(Locale.ROOT, "counter,\"%s\",%d,,,,,", row.getKey(), row.getValue().sum()));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces reading-position updates in memory and writes only the latest offset per
+ * article: on a timer, when a reading window closes and on exit. Each flush is one
+ * group-committed write through the DbWriter with the cached upsert statement.
+ */
+class ProgressTracker {
+    // -Dwordminer.progressFlushMs=N
+    static final long FLUSH_INTERVAL_MS = Long.getLong("wordminer.progressFlushMs", 2000);
+
+    private final DbWriter dbWriter;
+    private final Map<Integer, Integer> pending = new HashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wordminer-progress");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    ProgressTracker(DbWriter dbWriter) {
+        this.dbWriter = dbWriter;
+        timer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the latest offset; nothing is written until the next flush.
+     */
+    synchronized void update(int articleId, int offset) {
+        pending.put(articleId, offset);
+        updates.incrementAndGet();
+    }
+
+    /**
+     * Offset not yet flushed, or null; readers check this before the table.
+     */
+    synchronized Integer pendingOffset(int articleId) {
+        return pending.get(articleId);
+    }
+
+    /**
+     * Drops an unflushed offset, e.g. for an article being deleted.
+     */
+    synchronized void forget(int articleId) {
+        pending.remove(articleId);
+    }
+
+    /**
+     * Queues the latest offsets on the writer thread.
+     */
+    void flush() {
+        Map<Integer, Integer> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = new HashMap<>(pending);
+            pending.clear();
+        }
+        dbWriter.execute(c -> {
+            write(c, batch);
+            return null;
+        });
+    }
+
+    private void write(Connection c, Map<Integer, Integer> batch) throws SQLException {
+        PreparedStatement upsert = Database.prepare(c, "INSERT OR REPLACE INTO reading_progress (article_id, char_offset) VALUES (?,?)");
+        for (Map.Entry<Integer, Integer> entry : batch.entrySet()) {
+            upsert.setInt(1, entry.getKey());
+            upsert.setInt(2, entry.getValue());
+            upsert.addBatch();
+        }
+        upsert.executeBatch();
+        writes.addAndGet(batch.size());
+    }
+
+    /**
+     * Final flush on exit; must run before the DbWriter shuts down.
+     */
+    void shutdown() {
+        timer.shutdownNow();
+        flush();
+    }
+
+    String stats() {
+        long u = updates.get(), w = writes.get();
+        return String.format("Reading progress: %d updates, %d rows written, %d writes saved", u, w, u - w);
+    }
+}
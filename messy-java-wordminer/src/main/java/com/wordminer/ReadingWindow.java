@@ -1,43 +1,61 @@
 package com.wordminer;
 
-import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.CoreDocument;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
-
 import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Rectangle2D;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
- * Reading window for displaying and interacting with articles
+ * Reading window for displaying and interacting with articles.
+ * Listens to the label store, so a label changed anywhere restyles that lemma here too.
  */
 class ReadingWindow extends JFrame {
     private JTextPane textPane;
     private JScrollPane scrollPane;
     private int articleId;
-    private Connection dbConnection;
-    private StanfordCoreNLP pipeline;
+    private ArticleText content;
+    private ArticleAnalysis analysis;
+    private DbWriter dbWriter;
+    private ProgressTracker progressTracker;
+    private CompletableFuture<Lemmatizer> lemmatizer;
     private Map<String, DictEntry> dictionary;
-    private Map<String, String> userWords;
+    private LabelStore labels;
+    private LabelStore.Listener labelListener;
+    
+    // Receives the new difficulty scores of the articles a label change affected, on the EDT
+    private Consumer<Map<Integer, Double>> scoresChanged;
     
-    public ReadingWindow(int id, String title, String content, int savedPos, 
-                         Connection dbConnection, StanfordCoreNLP pipeline,
-                         Map<String, DictEntry> dictionary, Map<String, String> userWords,
-                         JFrame parent) {
+    // Document of the shown pages plus per-lemma ranges, rebuilt when the middle page changes
+    private HighlightedDocument highlighted;
+    private ArticlePages pages;
+    private int currentPage = -1;
+    private JLabel pageLabel;
+    
+    public ReadingWindow(int id, String title, ArticleText content, ArticleAnalysis analysis, int savedOffset, 
+                         DbWriter dbWriter, ProgressTracker progressTracker, CompletableFuture<Lemmatizer> lemmatizer,
+                         Map<String, DictEntry> dictionary, LabelStore labels,
+                         Consumer<Map<Integer, Double>> scoresChanged, JFrame parent) {
         this.articleId = id;
-        this.dbConnection = dbConnection;
-        this.pipeline = pipeline;
+        this.content = content;
+        this.analysis = analysis;
+        this.dbWriter = dbWriter;
+        this.progressTracker = progressTracker;
+        this.lemmatizer = lemmatizer;
         this.dictionary = dictionary;
-        this.userWords = userWords;
+        this.labels = labels;
+        this.scoresChanged = scoresChanged;
         
         setTitle("Reading: " + title);
         setSize(900, 700);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
         setLocationRelativeTo(parent);
         
         textPane = new JTextPane();
@@ -56,84 +74,108 @@ class ReadingWindow extends JFrame {
         });
         
         scrollPane = new JScrollPane(textPane);
-        add(scrollPane);
-        
-        // Display with highlighting
-        displayContent(content);
+        add(scrollPane, BorderLayout.CENTER);
         
-        // Restore position
-        SwingUtilities.invokeLater(() -> {
-            scrollPane.getVerticalScrollBar().setValue(savedPos);
+        JButton prevBtn = new JButton("< Page");
+        JButton nextBtn = new JButton("Page >");
+        pageLabel = new JLabel();
+        prevBtn.addActionListener(e -> {
+            if (currentPage > 0) showPage(currentPage - 1, pages.start(currentPage - 1));
+        });
+        nextBtn.addActionListener(e -> {
+            if (currentPage + 1 < pages.count()) showPage(currentPage + 1, pages.start(currentPage + 1));
         });
+        JButton markRestBtn = new JButton("Mark Rest Known");
+        markRestBtn.addActionListener(e -> markRestKnown(markRestBtn));
+        JPanel navPanel = new JPanel();
+        navPanel.add(prevBtn);
+        navPanel.add(pageLabel);
+        navPanel.add(nextBtn);
+        navPanel.add(markRestBtn);
+        add(navPanel, BorderLayout.SOUTH);
         
-        // Save position on scroll
+        // Display with highlighting, starting at the saved offset
+        pages = content.pages(analysis);
+        int offset = Math.max(0, Math.min(savedOffset, content.length()));
+        showPage(pages.pageOf(offset), offset);
+        
+        // Save position on scroll; move the window of pages once another page fills the middle of the view
         scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
             if (!e.getValueIsAdjusting()) {
-                savePosition(scrollPane.getVerticalScrollBar().getValue());
+                int top = offsetAt(0);
+                int page = pages.pageOf(offsetAt(scrollPane.getViewport().getHeight() / 2));
+                if (page != currentPage) {
+                    showPage(page, top);
+                }
+                progressTracker.update(articleId, top);
+            }
+        });
+        
+        // Restyle changed lemmas on the EDT, whichever thread changed them
+        labelListener = (ids, previous, current) -> {
+            if (SwingUtilities.isEventDispatchThread()) {
+                restyle(ids);
+            } else {
+                SwingUtilities.invokeLater(() -> restyle(ids));
+            }
+        };
+        labels.addListener(labelListener);
+        
+        // Write the last position now rather than at the next timer tick
+        addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) {
+                labels.removeListener(labelListener);
+                progressTracker.flush();
             }
         });
         
         setVisible(true);
     }
     
-    private void displayContent(String content) {
-        StyledDocument doc = textPane.getStyledDocument();
+    /**
+     * Shows the page with its neighbours and scrolls so the offset is at the top.
+     * Only these pages are laid out and styled, however long the article is.
+     */
+    private void showPage(int page, int offset) {
+        int first = Math.max(0, page - 1);
+        int last = Math.min(pages.count() - 1, page + 1);
+        if (page != currentPage) {
+            long start = Metrics.start();
+            currentPage = page;
+            highlighted = HighlightedDocument.build(content, analysis, pages.start(first), pages.end(last),
+                                                    pages.firstToken(first), pages.endToken(last));
+            textPane.setStyledDocument(highlighted.document);
+            Metrics.record("reading: showPage", start);
+        }
+        pageLabel.setText("Page " + (page + 1) + " of " + pages.count());
         
-        try {
-            doc.remove(0, doc.getLength());
-            
-            // Styles
-            Style defaultStyle = textPane.addStyle("default", null);
-            StyleConstants.setForeground(defaultStyle, Color.BLACK);
-            
-            Style knownStyle = textPane.addStyle("known", null);
-            StyleConstants.setForeground(knownStyle, Color.GRAY);
-            
-            Style unknownStyle = textPane.addStyle("unknown", null);
-            StyleConstants.setForeground(unknownStyle, new Color(200, 50, 50));
-            
-            Style uncertainStyle = textPane.addStyle("uncertain", null);
-            StyleConstants.setForeground(uncertainStyle, new Color(200, 100, 0));
-            
-            // Process with NLP
-            CoreDocument coreDoc = new CoreDocument(content);
-            pipeline.annotate(coreDoc);
-            
-            int lastEnd = 0;
-            for (CoreLabel token : coreDoc.tokens()) {
-                // Add text between tokens
-                int start = token.beginPosition();
-                if (start > lastEnd) {
-                    doc.insertString(doc.getLength(), content.substring(lastEnd, start), defaultStyle);
-                }
-                
-                String word = token.word();
-                String lemma = token.lemma().toLowerCase();
-                
-                Style style = defaultStyle;
-                if (word.matches("[a-zA-Z]+")) {
-                    String label = userWords.getOrDefault(lemma, "unlabeled");
-                    switch (label) {
-                        case "known": style = knownStyle; break;
-                        case "unknown": style = unknownStyle; break;
-                        case "uncertain": style = uncertainStyle; break;
-                    }
+        // After layout, so the offset has a position in the view
+        SwingUtilities.invokeLater(() -> {
+            try {
+                Rectangle2D r = textPane.modelToView2D(offset - highlighted.offset);
+                if (r != null) {
+                    scrollPane.getViewport().setViewPosition(new Point(0, (int) r.getY()));
                 }
-                
-                doc.insertString(doc.getLength(), word, style);
-                lastEnd = token.endPosition();
-            }
-            
-            // Add remaining text
-            if (lastEnd < content.length()) {
-                doc.insertString(doc.getLength(), content.substring(lastEnd), defaultStyle);
+            } catch (BadLocationException e) {
+                e.printStackTrace();
             }
-            
-        } catch (Exception e) {
-            e.printStackTrace();
+        });
+    }
+    
+    private void restyle(int[] ids) {
+        for (int id : ids) {
+            highlighted.restyle(id);
         }
     }
     
+    /**
+     * Content offset of the text shown y pixels below the top of the view
+     */
+    private int offsetAt(int y) {
+        Point top = scrollPane.getViewport().getViewPosition();
+        return highlighted.offset + textPane.viewToModel2D(new Point(0, top.y + y));
+    }
+    
     private String getWordAt(int pos) {
         try {
             StyledDocument doc = textPane.getStyledDocument();
@@ -155,10 +197,10 @@ class ReadingWindow extends JFrame {
     }
     
     private void showWordPopup(String word) {
+        long start = Metrics.start();
+        
         // Get lemma
-        CoreDocument doc = new CoreDocument(word);
-        pipeline.annotate(doc);
-        String lemma = doc.tokens().get(0).lemma().toLowerCase();
+        String lemma = lemmatizer.join().lemma(word);
         
         // Create popup
         JDialog dialog = new JDialog(this, "Word: " + word, true);
@@ -179,9 +221,9 @@ class ReadingWindow extends JFrame {
         
         if (dictionary.containsKey(lemma)) {
             DictEntry entry = dictionary.get(lemma);
-            info.append("Levels: " + String.join(", ", entry.levels) + "\n\n");
+            info.append("Levels: " + String.join(", ", entry.levelNames()) + "\n\n");
             
-            Map<String, Object> data = entry.data;
+            Map<String, Object> data = entry.data();
             if (data.containsKey("translations")) {
                 info.append("Translations:\n");
                 List<Map<String, String>> trans = (List<Map<String, String>>) data.get("translations");
@@ -204,7 +246,8 @@ class ReadingWindow extends JFrame {
             info.append("Not found in dictionary\n");
         }
         
-        String currentLabel = userWords.getOrDefault(lemma, "unlabeled");
+        String currentLabel = labels.get(lemma);
+        if (currentLabel == null) currentLabel = "unlabeled";
         info.append("\nCurrent Label: " + currentLabel);
         
         infoArea.setText(info.toString());
@@ -226,50 +269,62 @@ class ReadingWindow extends JFrame {
         panel.add(btnPanel, BorderLayout.SOUTH);
         
         dialog.add(panel);
+        // Up to the modal dialog, which blocks until it is closed
+        Metrics.record("reading: showWordPopup", start);
         dialog.setVisible(true);
     }
     
     private void updateLabel(String lemma, String label) {
-        try {
-            PreparedStatement ps = dbConnection.prepareStatement(
+        String date = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        dbWriter.execute(c -> {
+            Map<Integer, Double> scores = ArticleStats.labelChanged(c, lemma, label, dictionary);
+            PreparedStatement ps = Database.prepare(c,
                 "INSERT OR REPLACE INTO user_words (lemma, label, date) VALUES (?,?,?)"
             );
             ps.setString(1, lemma);
             ps.setString(2, label);
-            ps.setString(3, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            ps.setString(3, date);
             ps.executeUpdate();
-            
-            userWords.put(lemma, label);
-            
-            // Re-display content
-            try {
-                PreparedStatement ps2 = dbConnection.prepareStatement("SELECT content FROM articles WHERE id=?");
-                ps2.setInt(1, articleId);
-                ResultSet rs = ps2.executeQuery();
-                if (rs.next()) {
-                    int pos = scrollPane.getVerticalScrollBar().getValue();
-                    displayContent(rs.getString("content"));
-                    SwingUtilities.invokeLater(() -> scrollPane.getVerticalScrollBar().setValue(pos));
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            if (!scores.isEmpty()) SwingUtilities.invokeLater(() -> scoresChanged.accept(scores));
+            return null;
+        });
+        
+        // Every open window, this one included, restyles the lemma from the listener
+        long start = Metrics.start();
+        labels.put(lemma, label);
+        Metrics.record("reading: restyle", start);
     }
     
-    private void savePosition(int pos) {
-        try {
-            PreparedStatement ps = dbConnection.prepareStatement(
-                "INSERT OR REPLACE INTO reading_progress (article_id, position) VALUES (?,?)"
-            );
-            ps.setInt(1, articleId);
-            ps.setInt(2, pos);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * Labels every lemma of the article that has no label yet as known, in one transaction.
+     */
+    private void markRestKnown(JButton button) {
+        Map<String, String> changes = BulkLabels.unlabeled(analysis, "known");
+        if (changes.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Every word in this article is labeled.");
+            return;
         }
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Mark the " + changes.size() + " unlabeled words of this article as known?",
+            "Mark Rest Known", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) return;
+        
+        button.setEnabled(false);
+        new SwingWorker<Map<Integer, Double>, Void>() {
+            protected Map<Integer, Double> doInBackground() throws SQLException {
+                return BulkLabels.apply(dbWriter, labels, changes, dictionary);
+            }
+            
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    Map<Integer, Double> scores = get();
+                    if (!scores.isEmpty()) scoresChanged.accept(scores);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(ReadingWindow.this, "Labeling failed: " + e.getMessage());
+                }
+            }
+        }.execute();
     }
 }
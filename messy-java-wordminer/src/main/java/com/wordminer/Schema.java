@@ -0,0 +1,90 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tables of wordminer.db and migrations for databases created by older versions
+ */
+final class Schema {
+    private Schema() {}
+
+    static void create(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            createTables(connection, stmt);
+        }
+    }
+
+    private static void createTables(Connection connection, Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS articles (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, content TEXT, file_path TEXT, total_words INTEGER, unique_words INTEGER, import_date TEXT)");
+        // Normalized dictionary, see DictionaryLoader
+        stmt.execute("CREATE TABLE IF NOT EXISTS dict_word (id INTEGER PRIMARY KEY, word TEXT UNIQUE, payload_id INTEGER)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS dict_level (word_id INTEGER, level TEXT, payload_id INTEGER, PRIMARY KEY (word_id, level)) WITHOUT ROWID");
+        stmt.execute("CREATE TABLE IF NOT EXISTS dict_payload (id INTEGER PRIMARY KEY, hash TEXT UNIQUE, data TEXT)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS user_words (lemma TEXT PRIMARY KEY, label TEXT, date TEXT)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS reading_progress (article_id INTEGER PRIMARY KEY, position INTEGER)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS dict_loaded (level TEXT PRIMARY KEY)");
+
+        // The old dictionary table kept one level per word; its levels are imported again
+        if (tableExists(connection, "dictionary")) {
+            stmt.execute("DROP TABLE dictionary");
+            stmt.execute("DELETE FROM dict_loaded");
+        }
+        stmt.execute("CREATE TABLE IF NOT EXISTS article_analysis (article_id INTEGER PRIMARY KEY, stamp TEXT, data BLOB)");
+        // Deflated content blocks, see ContentBlocks; articles.content is left NULL for these
+        stmt.execute("CREATE TABLE IF NOT EXISTS article_blocks (article_id INTEGER, block INTEGER, char_start INTEGER, chars INTEGER, data BLOB, PRIMARY KEY (article_id, block))");
+        stmt.execute("CREATE TABLE IF NOT EXISTS lemma_cache (stamp TEXT, surface TEXT, lemma TEXT, PRIMARY KEY (stamp, surface))");
+
+        // Inverted index for cross-article queries, see WordStats
+        stmt.execute("CREATE TABLE IF NOT EXISTS word_stats (lemma TEXT, article_id INTEGER, count INTEGER, PRIMARY KEY (lemma, article_id)) WITHOUT ROWID");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_word_stats_article ON word_stats(article_id, lemma, count)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS lemma_df (lemma TEXT PRIMARY KEY, df INTEGER, total INTEGER)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_lemma_df_df ON lemma_df(df DESC, total DESC)");
+        // Articles in the index, including those without a single word lemma and so without rows;
+        // on first creation every article with rows is indexed already
+        boolean markIndexed = !tableExists(connection, "word_stats_articles");
+        stmt.execute("CREATE TABLE IF NOT EXISTS word_stats_articles (article_id INTEGER PRIMARY KEY)");
+        if (markIndexed) stmt.execute("INSERT INTO word_stats_articles SELECT DISTINCT article_id FROM word_stats");
+
+        // Report numbers kept at import, see ArticleStats
+        stmt.execute("CREATE TABLE IF NOT EXISTS article_stats (article_id INTEGER PRIMARY KEY, dict_signature INTEGER, level_counts TEXT, not_in_dict INTEGER)");
+
+        addColumnIfMissing(connection, "articles", "content_hash", "TEXT");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_articles_content_hash ON articles(content_hash)");
+        // Articles imported before hashing existed are hashed here, once
+        ArticleImporter.backfillHashes(connection);
+
+        // Covers the article list, so paging, sorting and title search never read the content pages
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_articles_list ON articles(id, title, total_words, unique_words, import_date)");
+
+        // Difficulty score numerator and denominator, see ArticleStats
+        addColumnIfMissing(connection, "article_stats", "unknown_weight", "REAL");
+        addColumnIfMissing(connection, "article_stats", "word_tokens", "INTEGER");
+
+        // Reading position as a character offset into the content; position kept the scroll pixels
+        addColumnIfMissing(connection, "reading_progress", "char_offset", "INTEGER");
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM sqlite_master WHERE type='table' AND name=?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static void addColumnIfMissing(Connection connection, String table, String column, String type) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+                while (rs.next()) {
+                    if (rs.getString("name").equalsIgnoreCase(column)) return;
+                }
+            }
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+        }
+    }
+}
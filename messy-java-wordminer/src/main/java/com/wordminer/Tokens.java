@@ -0,0 +1,59 @@
+package com.wordminer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token classification shared by the import, report and reading loops.
+ * Avoids regex and needless lowercase copies; counters index into int arrays.
+ */
+final class Tokens {
+    static final String[] LABELS = {"known", "unknown", "uncertain", "unlabeled"};
+    static final int KNOWN = 0, UNKNOWN = 1, UNCERTAIN = 2, UNLABELED = 3;
+
+    // One shared instance per lemma, so hash codes are computed once and equals() hits on identity
+    private static final ConcurrentHashMap<String, String> canonical = new ConcurrentHashMap<>();
+
+    private Tokens() {}
+
+    /**
+     * Same as word.matches("[a-zA-Z]+") without the regex.
+     */
+    static boolean isWord(String word) {
+        int n = word.length();
+        if (n == 0) return false;
+        for (int i = 0; i < n; i++) {
+            char c = word.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lowercase, canonical lemma. Lowercases only when needed.
+     */
+    static String lemma(String raw) {
+        String lower = raw;
+        for (int i = 0; i < raw.length(); i++) {
+            if (Character.isUpperCase(raw.charAt(i))) {
+                lower = raw.toLowerCase();
+                break;
+            }
+        }
+        return isWord(lower) ? canonical(lower) : lower;
+    }
+
+    static String canonical(String s) {
+        String existing = canonical.putIfAbsent(s, s);
+        return existing == null ? s : existing;
+    }
+
+    static int labelIndex(String label) {
+        if (label == null) return UNLABELED;
+        switch (label) {
+            case "known": return KNOWN;
+            case "unknown": return UNKNOWN;
+            case "uncertain": return UNCERTAIN;
+            default: return UNLABELED;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.wordminer;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Numbers behind the vocabulary report: level distribution and label status of an article's unique lemmas
+ */
+class VocabularyReport {
+    int[] levelCounts = new int[DictEntry.LEVELS.length];
+    int[] labelCounts = new int[Tokens.LABELS.length];
+    int notInDict;
+    
+    // Set by ArticleStats.load when the stored level histogram was out of date and should be saved again
+    boolean recounted;
+    
+    /**
+     * Counts from the token ids, with the levels and labels held in LemmaIds.
+     */
+    static VocabularyReport compute(ArticleAnalysis analysis) {
+        BitSet uniqueLemmas = new BitSet(LemmaIds.size());
+        for (int i = 0; i < analysis.size; i++) {
+            if (analysis.ids[i] >= 0) {
+                uniqueLemmas.set(analysis.ids[i]);
+            }
+        }
+        
+        VocabularyReport report = new VocabularyReport();
+        for (int id = uniqueLemmas.nextSetBit(0); id >= 0; id = uniqueLemmas.nextSetBit(id + 1)) {
+            report.countLevels(id);
+            report.labelCounts[LemmaIds.label(id)]++;
+        }
+        return report;
+    }
+    
+    void countLevels(int id) {
+        int levels = LemmaIds.levels(id);
+        if ((levels & LemmaIds.IN_DICTIONARY) != 0) {
+            for (int l = 0; l < levelCounts.length; l++) {
+                if ((levels & (1 << l)) != 0) levelCounts[l]++;
+            }
+        } else {
+            notInDict++;
+        }
+    }
+    
+    void countLevels(String lemma, Map<String, DictEntry> dictionary) {
+        DictEntry entry = dictionary.get(lemma);
+        if (entry != null) {
+            for (int l = 0; l < levelCounts.length; l++) {
+                if (entry.hasLevel(l)) levelCounts[l]++;
+            }
+        } else {
+            notInDict++;
+        }
+    }
+    
+    /**
+     * Moves the label counts of the changed lemmas that occur in the article, as reported
+     * by LabelStore. Returns whether any did.
+     */
+    boolean labelsChanged(int[] ids, int[] previous, int[] current, BitSet articleLemmas) {
+        boolean changed = false;
+        for (int i = 0; i < ids.length; i++) {
+            if (previous[i] != current[i] && articleLemmas.get(ids[i])) {
+                labelCounts[previous[i]]--;
+                labelCounts[current[i]]++;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    String format(String title, int totalWords, int uniqueWords) {
+        StringBuilder report = new StringBuilder();
+        report.append("Article: " + title + "\n\n");
+        report.append("=== Basic Statistics ===\n");
+        report.append("Total words: " + totalWords + "\n");
+        report.append("Unique words: " + uniqueWords + "\n\n");
+        
+        report.append("=== Vocabulary Level Distribution ===\n");
+        for (int l = 0; l < levelCounts.length; l++) {
+            if (levelCounts[l] > 0) {
+                report.append(DictEntry.LEVELS[l] + ": " + levelCounts[l] + " words\n");
+            }
+        }
+        report.append("Not in dictionary: " + notInDict + " words\n\n");
+        
+        report.append("=== Your Label Status ===\n");
+        report.append("Known: " + labelCounts[Tokens.KNOWN] + " words\n");
+        report.append("Unknown: " + labelCounts[Tokens.UNKNOWN] + " words\n");
+        report.append("Uncertain: " + labelCounts[Tokens.UNCERTAIN] + " words\n");
+        report.append("Unlabeled: " + labelCounts[Tokens.UNLABELED] + " words\n");
+        return report.toString();
+    }
+}
@@ -1,11 +1,9 @@
 package com.wordminer;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import edu.stanford.nlp.pipeline.*;
-import edu.stanford.nlp.ling.CoreLabel;
-
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.text.*;
 import java.awt.*;
@@ -13,36 +11,54 @@ import java.awt.event.*;
 import java.io.*;
 import java.nio.file.*;
 import java.sql.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Main WordMiner Application - All-in-one messy implementation
  */
 public class WordMinerApp extends JFrame {
     
-    // Database connection
+    // Query-only connection for the UI; writes go through the single writer thread
     private Connection dbConnection;
+    private DbWriter dbWriter;
+    
+    // Lemmatizer backend (CoreNLP or dictionary lookup), warmed up in the background
+    // Wrapped in a LemmaCache, so single-word lookups skip the backend when seen before
+    private CompletableFuture<Lemmatizer> lemmatizer;
     
-    // Stanford CoreNLP pipeline for lemmatization
-    private StanfordCoreNLP pipeline;
+    private ArticleImporter importer;
     
     // Dictionary cache: lemma -> {level, translations, phrases}
     private Map<String, DictEntry> dictionary = new HashMap<>();
     
-    // User labeled words: lemma -> label
-    private Map<String, String> userWords = new HashMap<>();
+    // Identifies the loaded dictionary; stored level histograms made with another one are recounted
+    private long dictionarySignature;
+    
+    // User labeled words: lemma -> label, shared with reading windows and background work
+    private final LabelStore labels = new LabelStore();
     
     // GUI components
     private JTable articleTable;
-    private DefaultTableModel tableModel;
-    private JButton importBtn, deleteBtn, reportBtn, readBtn, labelsBtn;
+    private ArticleTableModel articleModel;
+    private JTextField searchField;
+    private JButton importBtn, importFolderBtn, deleteBtn, reportBtn, readBtn, labelsBtn, corpusBtn, diagnosticsBtn;
+    private JLabel nlpStatusLabel;
     
     // Current reading article and position
     private int currentArticleId = -1;
-    private Map<Integer, Integer> readingProgress = new HashMap<>();
+    private ProgressTracker progressTracker;
+    
+    // Startup phase -> elapsed milliseconds, in the order they ran
+    private Map<String, Long> startupTimes = new LinkedHashMap<>();
+    
+    private static final Path DICT_DIR = Paths.get("data", "dictionary");
+    private static final Path DICT_SNAPSHOT = Paths.get("wordminer.dict");
+    
+    // Metrics written here on exit when set, -Dwordminer.metricsFile=metrics.json (or .csv)
+    private static final String METRICS_FILE = System.getProperty("wordminer.metricsFile");
     
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
@@ -57,37 +73,55 @@ public class WordMinerApp extends JFrame {
     
     public WordMinerApp() {
         System.out.println("Initializing database...");
-        initDatabase();
+        timePhase("initDatabase", this::initDatabase);
         System.out.println("Database initialized.");
         
-        System.out.println("Initializing NLP pipeline (this may take a minute)...");
-        initNLP();
-        System.out.println("NLP pipeline ready.");
-        
         System.out.println("Loading dictionary...");
-        loadDictionary();
+        timePhase("loadDictionary", this::loadDictionary);
         System.out.println("Dictionary loaded: " + dictionary.size() + " words");
         
+        // The lookup backend builds its table from the dictionary, so this runs after it
+        System.out.println("Initializing lemmatizer in the background...");
+        initNLP();
+        
         System.out.println("Loading user words...");
-        loadUserWords();
+        timePhase("loadUserWords", this::loadUserWords);
         System.out.println("User words loaded.");
         
         System.out.println("Creating GUI...");
-        initGUI();
-        refreshArticleList();
+        importer = new ArticleImporter(lemmatizer, dictionary, dictionarySignature, dbWriter);
+        timePhase("initGUI", () -> {
+            initGUI();
+            refreshArticleList();
+        });
+        scoreArticles();
         System.out.println("Application ready!");
+        
+        System.out.println("Startup times:");
+        for (Map.Entry<String, Long> entry : startupTimes.entrySet()) {
+            System.out.println(String.format("  %-28s %6d ms", entry.getKey(), entry.getValue()));
+        }
+    }
+    
+    private void timePhase(String phase, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } finally {
+            startupTimes.put(phase, (System.nanoTime() - start) / 1_000_000);
+            Metrics.record("startup: " + phase, start);
+        }
     }
     
     private void initDatabase() {
         try {
-            dbConnection = DriverManager.getConnection("jdbc:sqlite:wordminer.db");
-            Statement stmt = dbConnection.createStatement();
+            Connection writeConnection = Database.open(Database.URL);
+            Schema.create(writeConnection);
+            dbWriter = new DbWriter(writeConnection);
+            dbConnection = Database.openReader(Database.URL);
             
-            stmt.execute("CREATE TABLE IF NOT EXISTS articles (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, content TEXT, file_path TEXT, total_words INTEGER, unique_words INTEGER, import_date TEXT)");
-            stmt.execute("CREATE TABLE IF NOT EXISTS dictionary (word TEXT PRIMARY KEY, level TEXT, data TEXT)");
-            stmt.execute("CREATE TABLE IF NOT EXISTS user_words (lemma TEXT PRIMARY KEY, label TEXT, date TEXT)");
-            stmt.execute("CREATE TABLE IF NOT EXISTS reading_progress (article_id INTEGER PRIMARY KEY, position INTEGER)");
-            stmt.execute("CREATE TABLE IF NOT EXISTS dict_loaded (level TEXT PRIMARY KEY)");
+            progressTracker = new ProgressTracker(dbWriter);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
             
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -95,64 +129,84 @@ public class WordMinerApp extends JFrame {
     }
     
     private void initNLP() {
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma");
-        props.setProperty("tokenize.language", "en");
-        pipeline = new StanfordCoreNLP(props);
+        long start = System.nanoTime();
+        lemmatizer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new LemmaCache(Lemmatizer.fromConfig(dictionary), dbWriter).load();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        lemmatizer.whenComplete((nlp, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            } else {
+                System.out.println("Lemmatizer '" + nlp.name() + "' ready (" + (System.nanoTime() - start) / 1_000_000 + " ms).");
+                Metrics.record("startup: initNLP", start);
+            }
+            SwingUtilities.invokeLater(() -> nlpStatusLabel.setText(nlpStatus()));
+        });
+    }
+    
+    /**
+     * Saves reading progress and the lemma cache and drains queued writes; runs from the shutdown hook.
+     */
+    private void shutdown() {
+        progressTracker.shutdown();
+        System.out.println(progressTracker.stats());
+        if (lemmatizer != null && lemmatizer.isDone() && !lemmatizer.isCompletedExceptionally()) {
+            LemmaCache cache = (LemmaCache) lemmatizer.join();
+            cache.flush();
+            System.out.println(cache.stats());
+        }
+        dbWriter.shutdown();
+        Database.close(dbConnection);
+        System.out.println(dbWriter.stats());
+        System.out.print(Metrics.report());
+        if (METRICS_FILE != null) {
+            try {
+                Metrics.dump(Paths.get(METRICS_FILE));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Summary lines of the writer, progress tracker and lemma cache for the diagnostics window.
+     */
+    private String componentStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append(dbWriter.stats()).append('\n');
+        stats.append(progressTracker.stats()).append('\n');
+        if (lemmatizer.isDone() && !lemmatizer.isCompletedExceptionally()) {
+            stats.append(((LemmaCache) lemmatizer.join()).stats()).append('\n');
+        }
+        stats.append("Dictionary: ").append(dictionary.size()).append(" words, user labels: ").append(labels.size());
+        return stats.toString();
+    }
+    
+    private String nlpStatus() {
+        if (!lemmatizer.isDone()) return "NLP: warming up...";
+        if (lemmatizer.isCompletedExceptionally()) return "NLP: failed to load";
+        return "NLP: " + lemmatizer.join().name() + " ready";
     }
     
     private void loadDictionary() {
         try {
-            String[] levels = {"1-middle-school", "2-high-school", "3-CET4", "4-CET6", "5-postgraduate", "6-TOEFL", "7-SAT"};
-            
-            for (String level : levels) {
-                // Check if already loaded
-                PreparedStatement check = dbConnection.prepareStatement("SELECT 1 FROM dict_loaded WHERE level=?");
-                check.setString(1, level);
-                ResultSet rs = check.executeQuery();
-                if (rs.next()) continue;
-                
-                // Load from JSON
-                String jsonPath = "data/dictionary/" + level + ".json";
-                File jsonFile = new File(jsonPath);
-                if (!jsonFile.exists()) continue;
-                
-                String jsonContent = Files.readString(jsonFile.toPath());
-                Gson gson = new Gson();
-                List<Map<String, Object>> words = gson.fromJson(jsonContent, new TypeToken<List<Map<String, Object>>>(){}.getType());
-                
-                PreparedStatement insert = dbConnection.prepareStatement("INSERT OR IGNORE INTO dictionary VALUES (?,?,?)");
-                for (Map<String, Object> wordData : words) {
-                    String word = (String) wordData.get("word");
-                    insert.setString(1, word);
-                    insert.setString(2, level);
-                    insert.setString(3, gson.toJson(wordData));
-                    insert.executeUpdate();
+            // Imports levels on first run, so it needs the write connection
+            dbWriter.call(c -> {
+                try {
+                    DictionaryLoader loader = new DictionaryLoader(c, DICT_DIR, DICT_SNAPSHOT, startupTimes);
+                    loader.load(dictionary);
+                    dictionarySignature = loader.signature();
+                } catch (SQLException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new SQLException(e);
                 }
-                
-                // Mark as loaded
-                PreparedStatement markLoaded = dbConnection.prepareStatement("INSERT INTO dict_loaded VALUES (?)");
-                markLoaded.setString(1, level);
-                markLoaded.executeUpdate();
-            }
-            
-            // Load into memory
-            PreparedStatement ps = dbConnection.prepareStatement("SELECT * FROM dictionary");
-            ResultSet rs = ps.executeQuery();
-            Gson gson = new Gson();
-            while (rs.next()) {
-                String word = rs.getString("word");
-                String level = rs.getString("level");
-                String data = rs.getString("data");
-                Map<String, Object> wordData = gson.fromJson(data, new TypeToken<Map<String, Object>>(){}.getType());
-                
-                if (!dictionary.containsKey(word)) {
-                    dictionary.put(word, new DictEntry());
-                }
-                dictionary.get(word).levels.add(level);
-                dictionary.get(word).data = wordData;
-            }
-            
+                return null;
+            });
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -160,11 +214,7 @@ public class WordMinerApp extends JFrame {
     
     private void loadUserWords() {
         try {
-            PreparedStatement ps = dbConnection.prepareStatement("SELECT * FROM user_words");
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                userWords.put(rs.getString("lemma"), rs.getString("label"));
-            }
+            labels.load(dbConnection);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -184,57 +234,143 @@ public class WordMinerApp extends JFrame {
         
         JPanel topPanel = new JPanel();
         importBtn = new JButton("Import Article");
+        importFolderBtn = new JButton("Import Folder");
         deleteBtn = new JButton("Delete Article");
         reportBtn = new JButton("Vocabulary Report");
         readBtn = new JButton("Read Article");
         labelsBtn = new JButton("My Labeled Words");
+        corpusBtn = new JButton("Cross-Article Analysis");
+        diagnosticsBtn = new JButton("Diagnostics");
+        nlpStatusLabel = new JLabel(nlpStatus()) {
+            // Lemma cache hit rate, computed when the tooltip shows
+            public String getToolTipText(MouseEvent e) {
+                if (!lemmatizer.isDone() || lemmatizer.isCompletedExceptionally()) return null;
+                return ((LemmaCache) lemmatizer.join()).stats();
+            }
+        };
+        ToolTipManager.sharedInstance().registerComponent(nlpStatusLabel);
         
         reportBtn.setEnabled(false);
         readBtn.setEnabled(false);
         
         importBtn.addActionListener(e -> importArticle());
+        importFolderBtn.addActionListener(e -> importFolder());
         deleteBtn.addActionListener(e -> deleteArticle());
         reportBtn.addActionListener(e -> showReport());
         readBtn.addActionListener(e -> readArticle());
         labelsBtn.addActionListener(e -> showLabeledWords());
+        corpusBtn.addActionListener(e -> showCorpus());
+        diagnosticsBtn.addActionListener(e -> new DiagnosticsWindow(this::componentStats, this));
         
         topPanel.add(importBtn);
+        topPanel.add(importFolderBtn);
         topPanel.add(deleteBtn);
         topPanel.add(reportBtn);
         topPanel.add(readBtn);
         topPanel.add(labelsBtn);
+        topPanel.add(corpusBtn);
+        topPanel.add(diagnosticsBtn);
+        topPanel.add(nlpStatusLabel);
         
-        String[] columns = {"ID", "Title", "Total Words", "Unique Words", "Import Date"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
-        articleTable = new JTable(tableModel);
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchField = new JTextField(30);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { articleModel.setSearch(searchField.getText()); }
+            public void removeUpdate(DocumentEvent e) { articleModel.setSearch(searchField.getText()); }
+            public void changedUpdate(DocumentEvent e) {}
+        });
+        searchPanel.add(new JLabel("Search title:"));
+        searchPanel.add(searchField);
+        
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(topPanel, BorderLayout.NORTH);
+        northPanel.add(searchPanel, BorderLayout.SOUTH);
+        
+        // Rows are paged in by the model; sorting is done in SQL, not by a RowSorter
+        articleModel = new ArticleTableModel(dbConnection);
+        articleTable = new JTable(articleModel);
+        articleTable.getColumnModel().getColumn(ArticleTableModel.DIFFICULTY).setCellRenderer(new DefaultTableCellRenderer() {
+            protected void setValue(Object value) {
+                setHorizontalAlignment(RIGHT);
+                setText(value == null ? "" : String.format("%.1f%%", (Double) value * 100));
+            }
+        });
+        articleTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                int col = articleTable.columnAtPoint(e.getPoint());
+                if (col < 0) return;
+                articleModel.sortBy(articleTable.convertColumnIndexToModel(col));
+                showSortOrder();
+            }
+        });
         articleTable.getSelectionModel().addListSelectionListener(e -> {
             boolean selected = articleTable.getSelectedRow() >= 0;
             reportBtn.setEnabled(selected);
             readBtn.setEnabled(selected);
         });
         
-        add(topPanel, BorderLayout.NORTH);
+        add(northPanel, BorderLayout.NORTH);
         add(new JScrollPane(articleTable), BorderLayout.CENTER);
+        showSortOrder();
+    }
+    
+    private void showSortOrder() {
+        for (int col = 0; col < articleModel.getColumnCount(); col++) {
+            String name = articleModel.getColumnName(col);
+            if (col == articleModel.sortColumn()) name += articleModel.ascending() ? " \u25B2" : " \u25BC";
+            articleTable.getColumnModel().getColumn(articleTable.convertColumnIndexToView(col)).setHeaderValue(name);
+        }
+        articleTable.getTableHeader().repaint();
     }
     
+    /**
+     * Reloads the article list, keeping the selected articles selected where they are still loaded.
+     */
     private void refreshArticleList() {
-        tableModel.setRowCount(0);
-        try {
-            PreparedStatement ps = dbConnection.prepareStatement("SELECT * FROM articles ORDER BY id DESC");
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                tableModel.addRow(new Object[]{
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                    rs.getInt("total_words"),
-                    rs.getInt("unique_words"),
-                    rs.getString("import_date")
+        int[] rows = articleTable.getSelectedRows();
+        int[] ids = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = articleModel.idAt(rows[i]);
+        }
+        articleModel.reload();
+        for (int i = 0; i < ids.length; i++) {
+            int row = articleModel.rowOf(ids[i], rows[i]);
+            if (row >= 0) articleTable.addRowSelectionInterval(row, row);
+        }
+    }
+    
+    /**
+     * Scores articles that have no difficulty yet or were scored with another dictionary,
+     * in the background; the list is reloaded if any changed.
+     */
+    private void scoreArticles() {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return dbWriter.transaction(c -> {
+                    WordStats.backfill(c);
+                    return ArticleStats.rescore(c, dictionary, dictionarySignature);
                 });
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        }).whenComplete((scored, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            } else if (scored > 0) {
+                System.out.println("Scored " + scored + " articles for difficulty.");
+                SwingUtilities.invokeLater(this::refreshArticleList);
+            }
+        });
+    }
+    
+    /**
+     * New scores after a label change: patches the loaded rows, or reloads when sorted by difficulty.
+     */
+    private void scoresChanged(Map<Integer, Double> scores) {
+        if (articleModel.sortColumn() == ArticleTableModel.DIFFICULTY) {
+            refreshArticleList();
+        } else {
+            articleModel.scoresChanged(scores);
         }
     }
     
@@ -248,73 +384,115 @@ public class WordMinerApp extends JFrame {
         });
         
         if (fc.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try {
-                File file = fc.getSelectedFile();
-                String content = Files.readString(file.toPath());
-                
-                if (content.trim().isEmpty()) {
-                    JOptionPane.showMessageDialog(this, "File is empty!");
-                    return;
-                }
-                
-                // Analyze with NLP
-                CoreDocument doc = new CoreDocument(content);
-                pipeline.annotate(doc);
-                
-                int totalWords = 0;
-                Set<String> uniqueLemmas = new HashSet<>();
-                Map<String, Integer> levelCounts = new HashMap<>();
-                
-                for (CoreLabel token : doc.tokens()) {
-                    if (token.word().matches("[a-zA-Z]+")) {
-                        totalWords++;
-                        String lemma = token.lemma().toLowerCase();
-                        uniqueLemmas.add(lemma);
-                        
-                        if (dictionary.containsKey(lemma)) {
-                            for (String level : dictionary.get(lemma).levels) {
-                                levelCounts.put(level, levelCounts.getOrDefault(level, 0) + 1);
-                            }
-                        }
+            ArticleImporter.ImportJob job = importer.new ImportJob(fc.getSelectedFile());
+            runWithProgress(job, "Importing " + job.file.getName(), () -> importFinished(job));
+        }
+    }
+    
+    private void importFolder() {
+        JFileChooser fc = new JFileChooser();
+        fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        
+        if (fc.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            ArticleImporter.BatchImportJob job = importer.new BatchImportJob(fc.getSelectedFile());
+            runWithProgress(job, "Importing folder " + job.dir.getName(), () -> folderImportFinished(job));
+        }
+    }
+    
+    /**
+     * Queues an import job behind a progress dialog with cancel; onDone runs on the EDT.
+     */
+    private void runWithProgress(SwingWorker<?, ?> job, String title, Runnable onDone) {
+        JDialog progressDialog = new JDialog(this, title, false);
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        JLabel stageLabel = new JLabel("Queued");
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(e -> job.cancel(true));
+        
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        panel.add(stageLabel, BorderLayout.NORTH);
+        panel.add(progressBar, BorderLayout.CENTER);
+        panel.add(cancelBtn, BorderLayout.SOUTH);
+        progressDialog.add(panel);
+        progressDialog.setSize(400, 150);
+        progressDialog.setLocationRelativeTo(this);
+        
+        job.addPropertyChangeListener(e -> {
+            switch (e.getPropertyName()) {
+                case "progress": progressBar.setValue((Integer) e.getNewValue()); break;
+                case "stage": stageLabel.setText((String) e.getNewValue()); break;
+                case "state":
+                    if (e.getNewValue() == SwingWorker.StateValue.DONE) {
+                        progressDialog.dispose();
+                        onDone.run();
                     }
+                    break;
+            }
+        });
+        
+        try {
+            importer.start(job);
+            progressDialog.setVisible(true);
+        } catch (RejectedExecutionException e) {
+            JOptionPane.showMessageDialog(this, "Too many imports are already queued, please wait.");
+        }
+    }
+    
+    private void folderImportFinished(ArticleImporter.BatchImportJob job) {
+        refreshArticleList();
+        if (job.isCancelled()) return;
+        
+        try {
+            ArticleImporter.BatchResult result = job.get();
+            StringBuilder summary = new StringBuilder();
+            summary.append("Folder import finished.\n\n");
+            summary.append("Text files found: " + result.files + "\n");
+            summary.append("Imported: " + result.imported + "\n");
+            summary.append("Skipped duplicates: " + result.duplicates + "\n");
+            summary.append("Skipped empty files: " + result.empty + "\n");
+            summary.append("Failed: " + result.failures.size() + "\n\n");
+            summary.append(String.format("Throughput: %.1f articles/sec, %.0f tokens/sec (%d threads, %.1f s)",
+                result.articlesPerSec(), result.tokensPerSec(), ArticleImporter.IMPORT_THREADS, result.elapsedMs / 1000.0));
+            for (String failure : result.failures.subList(0, Math.min(20, result.failures.size()))) {
+                summary.append("\n" + failure);
+            }
+            
+            JOptionPane.showMessageDialog(this, summary.toString());
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            cause.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Folder import failed: " + cause.getMessage());
+        }
+    }
+    
+    private void importFinished(ArticleImporter.ImportJob job) {
+        refreshArticleList();
+        if (job.isCancelled()) return;
+        
+        try {
+            ArticleImporter.Result result = job.get();
+            if (result == null) return;
+            
+            // Show summary
+            StringBuilder summary = new StringBuilder();
+            summary.append("Article imported successfully!\n\n");
+            summary.append("Total words: " + result.totalWords + "\n");
+            summary.append("Unique words: " + result.uniqueWords + "\n\n");
+            summary.append("Vocabulary Level Distribution:\n");
+            for (int l = 0; l < DictEntry.LEVELS.length; l++) {
+                if (result.levelCounts[l] > 0) {
+                    summary.append(DictEntry.LEVELS[l] + ": " + result.levelCounts[l] + " words\n");
                 }
-                
-                int notInDict = uniqueLemmas.size();
-                for (String lemma : uniqueLemmas) {
-                    if (dictionary.containsKey(lemma)) notInDict--;
-                }
-                
-                // Save to DB
-                PreparedStatement ps = dbConnection.prepareStatement(
-                    "INSERT INTO articles (title, content, file_path, total_words, unique_words, import_date) VALUES (?,?,?,?,?,?)",
-                    Statement.RETURN_GENERATED_KEYS
-                );
-                ps.setString(1, file.getName());
-                ps.setString(2, content);
-                ps.setString(3, file.getAbsolutePath());
-                ps.setInt(4, totalWords);
-                ps.setInt(5, uniqueLemmas.size());
-                ps.setString(6, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                ps.executeUpdate();
-                
-                // Show summary
-                StringBuilder summary = new StringBuilder();
-                summary.append("Article imported successfully!\n\n");
-                summary.append("Total words: " + totalWords + "\n");
-                summary.append("Unique words: " + uniqueLemmas.size() + "\n\n");
-                summary.append("Vocabulary Level Distribution:\n");
-                for (Map.Entry<String, Integer> entry : levelCounts.entrySet()) {
-                    summary.append(entry.getKey() + ": " + entry.getValue() + " words\n");
-                }
-                summary.append("Not in dictionary: " + notInDict + " words");
-                
-                JOptionPane.showMessageDialog(this, summary.toString());
-                refreshArticleList();
-                
-            } catch (Exception e) {
-                e.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Import failed: " + e.getMessage());
             }
+            summary.append("Not in dictionary: " + result.notInDict + " words");
+            
+            JOptionPane.showMessageDialog(this, summary.toString());
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            cause.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Import failed: " + cause.getMessage());
         }
     }
     
@@ -324,28 +502,50 @@ public class WordMinerApp extends JFrame {
             JOptionPane.showMessageDialog(this, "Please select an article");
             return;
         }
-        
-        int id = (int) tableModel.getValueAt(row, 0);
-        String title = (String) tableModel.getValueAt(row, 1);
+        int id = articleModel.idAt(row);
+        String title = articleModel.titleAt(row);
         
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Delete article: " + title + "?", "Confirm", JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                PreparedStatement ps = dbConnection.prepareStatement("DELETE FROM articles WHERE id=?");
-                ps.setInt(1, id);
-                ps.executeUpdate();
-                
-                ps = dbConnection.prepareStatement("DELETE FROM reading_progress WHERE article_id=?");
-                ps.setInt(1, id);
-                ps.executeUpdate();
+            progressTracker.forget(id);
+            deleteBtn.setEnabled(false);
+            // The transaction can wait behind an import batch, so it runs off the EDT
+            new SwingWorker<Void, Void>() {
+                protected Void doInBackground() throws SQLException {
+                    return dbWriter.transaction(c -> {
+                        PreparedStatement ps = Database.prepare(c, "DELETE FROM articles WHERE id=?");
+                        ps.setInt(1, id);
+                        ps.executeUpdate();
+                        
+                        ps = Database.prepare(c, "DELETE FROM reading_progress WHERE article_id=?");
+                        ps.setInt(1, id);
+                        ps.executeUpdate();
+                        
+                        ps = Database.prepare(c, "DELETE FROM article_analysis WHERE article_id=?");
+                        ps.setInt(1, id);
+                        ps.executeUpdate();
+                        
+                        ContentBlocks.delete(c, id);
+                        WordStats.delete(c, id);
+                        ArticleStats.delete(c, id);
+                        return null;
+                    });
+                }
                 
-                refreshArticleList();
-                JOptionPane.showMessageDialog(this, "Article deleted");
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+                protected void done() {
+                    deleteBtn.setEnabled(true);
+                    try {
+                        get();
+                        refreshArticleList();
+                        JOptionPane.showMessageDialog(WordMinerApp.this, "Article deleted");
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        JOptionPane.showMessageDialog(WordMinerApp.this, "Delete failed: " + e.getMessage());
+                    }
+                }
+            }.execute();
         }
     }
     
@@ -353,130 +553,213 @@ public class WordMinerApp extends JFrame {
         int row = articleTable.getSelectedRow();
         if (row < 0) return;
         
-        int id = (int) tableModel.getValueAt(row, 0);
+        int id = articleModel.idAt(row);
+        long start = Metrics.start();
         
         try {
-            PreparedStatement ps = dbConnection.prepareStatement("SELECT * FROM articles WHERE id=?");
+            String title;
+            int totalWords, uniqueWords;
+            PreparedStatement ps = Database.prepare(dbConnection, "SELECT title, total_words, unique_words FROM articles WHERE id=?");
             ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return;
+                title = rs.getString("title");
+                totalWords = rs.getInt("total_words");
+                uniqueWords = rs.getInt("unique_words");
+            }
             
-            if (rs.next()) {
-                String title = rs.getString("title");
-                String content = rs.getString("content");
-                int totalWords = rs.getInt("total_words");
-                int uniqueWords = rs.getInt("unique_words");
-                
-                // Analyze
-                CoreDocument doc = new CoreDocument(content);
-                pipeline.annotate(doc);
-                
-                Set<String> uniqueLemmas = new HashSet<>();
-                Map<String, Integer> levelCounts = new HashMap<>();
-                Map<String, Integer> labelCounts = new HashMap<>();
-                labelCounts.put("known", 0);
-                labelCounts.put("unknown", 0);
-                labelCounts.put("uncertain", 0);
-                labelCounts.put("unlabeled", 0);
-                
-                for (CoreLabel token : doc.tokens()) {
-                    if (token.word().matches("[a-zA-Z]+")) {
-                        String lemma = token.lemma().toLowerCase();
-                        uniqueLemmas.add(lemma);
+            // Stored level histogram plus a label join; the content is not read
+            VocabularyReport report = ArticleStats.load(dbConnection, id, dictionary, dictionarySignature);
+            if (report == null) {
+                // Not indexed yet: the analysis may need the lemmatizer, so it runs off the EDT
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                new SwingWorker<VocabularyReport, Void>() {
+                    protected VocabularyReport doInBackground() throws SQLException {
+                        return indexArticle(id);
                     }
-                }
-                
-                for (String lemma : uniqueLemmas) {
-                    if (dictionary.containsKey(lemma)) {
-                        for (String level : dictionary.get(lemma).levels) {
-                            levelCounts.put(level, levelCounts.getOrDefault(level, 0) + 1);
+                    
+                    protected void done() {
+                        setCursor(Cursor.getDefaultCursor());
+                        try {
+                            showReport(id, title, totalWords, uniqueWords, get(), start);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                            JOptionPane.showMessageDialog(WordMinerApp.this, "Report failed: " + e.getMessage());
                         }
                     }
-                    
-                    String label = userWords.getOrDefault(lemma, "unlabeled");
-                    labelCounts.put(label, labelCounts.get(label) + 1);
-                }
-                
-                int notInDict = uniqueLemmas.size();
-                for (String lemma : uniqueLemmas) {
-                    if (dictionary.containsKey(lemma)) notInDict--;
-                }
-                
-                // Display report
-                JFrame reportFrame = new JFrame("Vocabulary Report - " + title);
-                reportFrame.setSize(600, 500);
-                reportFrame.setLocationRelativeTo(this);
-                
-                StringBuilder report = new StringBuilder();
-                report.append("Article: " + title + "\n\n");
-                report.append("=== Basic Statistics ===\n");
-                report.append("Total words: " + totalWords + "\n");
-                report.append("Unique words: " + uniqueWords + "\n\n");
-                
-                report.append("=== Vocabulary Level Distribution ===\n");
-                for (Map.Entry<String, Integer> entry : levelCounts.entrySet()) {
-                    report.append(entry.getKey() + ": " + entry.getValue() + " words\n");
-                }
-                report.append("Not in dictionary: " + notInDict + " words\n\n");
-                
-                report.append("=== Your Label Status ===\n");
-                report.append("Known: " + labelCounts.get("known") + " words\n");
-                report.append("Unknown: " + labelCounts.get("unknown") + " words\n");
-                report.append("Uncertain: " + labelCounts.get("uncertain") + " words\n");
-                report.append("Unlabeled: " + labelCounts.get("unlabeled") + " words\n");
-                
-                JTextArea textArea = new JTextArea(report.toString());
-                textArea.setEditable(false);
-                textArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
-                reportFrame.add(new JScrollPane(textArea));
-                reportFrame.setVisible(true);
+                }.execute();
+                return;
             }
+            if (report.recounted) {
+                VocabularyReport recounted = report;
+                dbWriter.execute(c -> {
+                    ArticleStats.save(c, id, recounted, dictionary, dictionarySignature);
+                    return null;
+                });
+            }
+            showReport(id, title, totalWords, uniqueWords, report, start);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
     
+    /**
+     * Report window, kept current as labels change
+     */
+    private void showReport(int id, String title, int totalWords, int uniqueWords, VocabularyReport report, long start) {
+        JFrame reportFrame = new JFrame("Vocabulary Report - " + title);
+        reportFrame.setSize(600, 500);
+        reportFrame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        reportFrame.setLocationRelativeTo(this);
+        
+        JTextArea textArea = new JTextArea(report.format(title, totalWords, uniqueWords));
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
+        reportFrame.add(new JScrollPane(textArea));
+        
+        // Label changes move the counts of the lemmas they touch; the article's lemma set
+        // is read once, on the first change
+        BitSet[] articleLemmas = new BitSet[1];
+        LabelStore.Listener listener = (ids, previous, current) -> SwingUtilities.invokeLater(() -> {
+            try {
+                if (articleLemmas[0] == null) articleLemmas[0] = WordStats.lemmaIds(dbConnection, id);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+            if (report.labelsChanged(ids, previous, current, articleLemmas[0])) {
+                textArea.setText(report.format(title, totalWords, uniqueWords));
+            }
+        });
+        labels.addListener(listener);
+        reportFrame.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) {
+                labels.removeListener(listener);
+            }
+        });
+        reportFrame.setVisible(true);
+        Metrics.record("report: showReport", start);
+    }
+    
     private void readArticle() {
         int row = articleTable.getSelectedRow();
         if (row < 0) return;
         
-        int id = (int) tableModel.getValueAt(row, 0);
+        int id = articleModel.idAt(row);
+        long start = Metrics.start();
         
         try {
-            PreparedStatement ps = dbConnection.prepareStatement("SELECT * FROM articles WHERE id=?");
+            String title;
+            PreparedStatement ps = Database.prepare(dbConnection, "SELECT title FROM articles WHERE id=?");
             ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return;
+                title = rs.getString("title");
+            }
+            // Only the block index; the window inflates the blocks of the pages it shows
+            ArticleText content = ArticleText.load(dbConnection, id);
             
-            if (rs.next()) {
-                String title = rs.getString("title");
-                String content = rs.getString("content");
-                
-                // Get saved position
-                int savedPos = 0;
-                PreparedStatement ps2 = dbConnection.prepareStatement("SELECT position FROM reading_progress WHERE article_id=?");
+            // Saved character offset, unless a newer one is still waiting for its flush;
+            // rows from before paged reading only hold a scroll pixel value
+            int savedOffset = 0;
+            Integer pendingOffset = progressTracker.pendingOffset(id);
+            if (pendingOffset != null) {
+                savedOffset = pendingOffset;
+            } else {
+                PreparedStatement ps2 = Database.prepare(dbConnection, "SELECT char_offset FROM reading_progress WHERE article_id=?");
                 ps2.setInt(1, id);
-                ResultSet rs2 = ps2.executeQuery();
-                if (rs2.next()) {
-                    savedPos = rs2.getInt("position");
+                try (ResultSet rs2 = ps2.executeQuery()) {
+                    if (rs2.next()) {
+                        savedOffset = rs2.getInt("char_offset");
+                    }
                 }
-                
-                new ReadingWindow(id, title, content, savedPos, dbConnection, pipeline, dictionary, userWords, this);
             }
+            
+            // The analysis may wait for the lemmatizer or be recomputed, so it loads off the EDT
+            int offset = savedOffset;
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            new SwingWorker<ArticleAnalysis, Void>() {
+                protected ArticleAnalysis doInBackground() throws SQLException {
+                    return loadAnalysis(id);
+                }
+                
+                protected void done() {
+                    setCursor(Cursor.getDefaultCursor());
+                    try {
+                        new ReadingWindow(id, title, content, get(), offset, dbWriter, progressTracker, lemmatizer,
+                            dictionary, labels, WordMinerApp.this::scoresChanged, WordMinerApp.this);
+                        Metrics.record("reading: readArticle", start);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        JOptionPane.showMessageDialog(WordMinerApp.this, "Could not open the article: " + e.getMessage());
+                    }
+                }
+            }.execute();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
     
+    /**
+     * Report of an article that is not indexed yet (imported by an older version):
+     * analyzes it once and indexes it, so the next report is read from the tables.
+     * Runs off the EDT.
+     */
+    private VocabularyReport indexArticle(int articleId) throws SQLException {
+        ArticleAnalysis analysis = loadAnalysis(articleId);
+        VocabularyReport report = VocabularyReport.compute(analysis);
+        dbWriter.execute(c -> {
+            WordStats.delete(c, articleId);
+            WordStats.save(c, articleId, analysis);
+            ArticleStats.save(c, articleId, report, dictionary, dictionarySignature);
+            return null;
+        });
+        return report;
+    }
+    
+    /**
+     * Stored analysis of the article, or a fresh one. Runs off the EDT; its reads go through
+     * the writer's connection, since the read connection belongs to the EDT.
+     */
+    private ArticleAnalysis loadAnalysis(int articleId) throws SQLException {
+        Lemmatizer nlp = lemmatizer.join();
+        ArticleAnalysis analysis = dbWriter.call(c -> ArticleAnalysis.load(c, articleId, nlp.stamp()));
+        if (analysis != null) {
+            Metrics.count("reading: stored analysis reused", 1);
+            return analysis;
+        }
+        
+        // Missing or stale: analyze once more and keep the result
+        Metrics.count("reading: analysis recomputed", 1);
+        String text = dbWriter.call(c -> {
+            ArticleText content = ArticleText.load(c, articleId);
+            if (content == null) throw new SQLException("No article " + articleId);
+            return content.toString();
+        });
+        ArticleAnalysis fresh = nlp.analyze(text);
+        dbWriter.execute(c -> {
+            ArticleAnalysis.save(c, articleId, fresh);
+            return null;
+        });
+        return fresh;
+    }
+    
     private void showLabeledWords() {
         JFrame frame = new JFrame("My Labeled Words");
         frame.setSize(800, 600);
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
         frame.setLocationRelativeTo(this);
         
         JPanel topPanel = new JPanel();
         JComboBox<String> filterCombo = new JComboBox<>(new String[]{"All", "Known", "Unknown", "Uncertain"});
         JButton exportBtn = new JButton("Export to CSV");
+        JButton importBtn = new JButton("Import CSV");
+        JButton levelBtn = new JButton("Mark Level Known");
         topPanel.add(new JLabel("Filter:"));
         topPanel.add(filterCombo);
         topPanel.add(exportBtn);
+        topPanel.add(importBtn);
+        topPanel.add(levelBtn);
         
         String[] columns = {"Lemma", "Label"};
         DefaultTableModel model = new DefaultTableModel(columns, 0) {
@@ -487,7 +770,7 @@ public class WordMinerApp extends JFrame {
         Runnable refresh = () -> {
             model.setRowCount(0);
             String filter = (String) filterCombo.getSelectedItem();
-            for (Map.Entry<String, String> entry : userWords.entrySet()) {
+            for (Map.Entry<String, String> entry : labels.view().entrySet()) {
                 if (filter.equals("All") || entry.getValue().equalsIgnoreCase(filter)) {
                     model.addRow(new Object[]{entry.getKey(), entry.getValue()});
                 }
@@ -497,13 +780,115 @@ public class WordMinerApp extends JFrame {
         filterCombo.addActionListener(e -> refresh.run());
         refresh.run();
         
+        LabelStore.Listener listener = (ids, previous, current) -> SwingUtilities.invokeLater(refresh);
+        labels.addListener(listener);
+        frame.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) {
+                labels.removeListener(listener);
+            }
+        });
+        
         exportBtn.addActionListener(e -> exportToCSV());
+        importBtn.addActionListener(e -> importLabelCSV(frame));
+        levelBtn.addActionListener(e -> markLevelKnown(frame));
         
         frame.add(topPanel, BorderLayout.NORTH);
         frame.add(new JScrollPane(table), BorderLayout.CENTER);
         frame.setVisible(true);
     }
     
+    private void showCorpus() {
+        List<Integer> selected = new ArrayList<>();
+        for (int row : articleTable.getSelectedRows()) {
+            selected.add(articleModel.idAt(row));
+        }
+        
+        // Articles imported before the index existed are indexed from their stored analysis once
+        corpusBtn.setEnabled(false);
+        new SwingWorker<Integer, Void>() {
+            protected Integer doInBackground() throws SQLException {
+                return dbWriter.transaction(WordStats::backfill);
+            }
+            
+            protected void done() {
+                corpusBtn.setEnabled(true);
+                try {
+                    int added = get();
+                    if (added > 0) System.out.println("Indexed " + added + " articles for cross-article analysis.");
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                new CorpusWindow(dbConnection, selected, dictionary, WordMinerApp.this);
+            }
+        }.execute();
+    }
+    
+    private void markLevelKnown(JFrame parent) {
+        String level = (String) JOptionPane.showInputDialog(parent, "Mark every word of this level as known:",
+            "Mark Level Known", JOptionPane.QUESTION_MESSAGE, null, DictEntry.LEVELS, DictEntry.LEVELS[0]);
+        if (level == null) return;
+        
+        Map<String, String> changes = BulkLabels.level(dictionary, DictEntry.levelIndex(level), "known");
+        if (changes.isEmpty()) {
+            JOptionPane.showMessageDialog(parent, "Every word of " + level + " is already known.");
+            return;
+        }
+        int confirm = JOptionPane.showConfirmDialog(parent,
+            "Mark " + changes.size() + " words of " + level + " as known?", "Mark Level Known", JOptionPane.YES_NO_OPTION);
+        if (confirm == JOptionPane.YES_OPTION) applyLabels(changes, parent);
+    }
+    
+    /**
+     * Reads a one-column lemma CSV as exported; the label comes from the file name
+     * (known_words.csv) or is asked for.
+     */
+    private void importLabelCSV(JFrame parent) {
+        JFileChooser fc = new JFileChooser(new File("data"));
+        if (fc.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) return;
+        
+        Path file = fc.getSelectedFile().toPath();
+        String label = BulkLabels.labelOf(file);
+        if (label == null) {
+            String[] choices = {"known", "unknown", "uncertain"};
+            label = (String) JOptionPane.showInputDialog(parent, "Label the words of " + file.getFileName() + " as:",
+                "Import CSV", JOptionPane.QUESTION_MESSAGE, null, choices, choices[0]);
+            if (label == null) return;
+        }
+        try {
+            Map<String, String> changes = BulkLabels.csv(file, label);
+            if (changes.isEmpty()) {
+                JOptionPane.showMessageDialog(parent, "Every word of " + file.getFileName() + " is already " + label + ".");
+                return;
+            }
+            applyLabels(changes, parent);
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(parent, "Import failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Saves a bulk label change off the EDT; open windows update from the store's single notification.
+     */
+    private void applyLabels(Map<String, String> changes, JFrame parent) {
+        new SwingWorker<Map<Integer, Double>, Void>() {
+            protected Map<Integer, Double> doInBackground() throws SQLException {
+                return BulkLabels.apply(dbWriter, labels, changes, dictionary);
+            }
+            
+            protected void done() {
+                try {
+                    Map<Integer, Double> scores = get();
+                    if (!scores.isEmpty()) scoresChanged(scores);
+                    JOptionPane.showMessageDialog(parent, "Labeled " + changes.size() + " words.");
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(parent, "Labeling failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
     private void exportToCSV() {
         JFileChooser fc = new JFileChooser();
         fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -513,12 +898,12 @@ public class WordMinerApp extends JFrame {
                 File dir = fc.getSelectedFile();
                 
                 // Export three files
-                String[] labels = {"known", "unknown", "uncertain"};
-                for (String label : labels) {
+                String[] exported = {"known", "unknown", "uncertain"};
+                for (String label : exported) {
                     File file = new File(dir, label + "_words.csv");
                     try (PrintWriter pw = new PrintWriter(file)) {
                         pw.println("lemma");
-                        for (Map.Entry<String, String> entry : userWords.entrySet()) {
+                        for (Map.Entry<String, String> entry : labels.view().entrySet()) {
                             if (entry.getValue().equals(label)) {
                                 pw.println(entry.getKey());
                             }
@@ -0,0 +1,421 @@
+package com.wordminer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Headless entry point over the same database, dictionary, lemmatizer and import code as
+ * the GUI. Results stream to stdout (or files with --out); progress and the per-run
+ * throughput line go to stderr, so the output can be piped.
+ *
+ *   mvn -q compile exec:java@cli -Dexec.args="import data/articles"
+ *   java -cp wordminer-1.0.0-jar-with-dependencies.jar com.wordminer.WordMinerCli report 3 7
+ */
+public class WordMinerCli {
+    private static final String USAGE = String.join("\n",
+        "Usage: WordMinerCli [--db FILE] COMMAND [ARGS]",
+        "  import PATH...                      import .txt files and folders of them",
+        "  list                                articles as id, title, total words, unique words, import date",
+        "  report [--out DIR] [ID...]          vocabulary report of each article (all if no id)",
+        "  corpus [--label L] [--limit N] [ID...]",
+        "                                      lemmas in the most articles, or shared by all the ids given",
+        "  labels [--out DIR]                  labeled words as CSV, or known/unknown/uncertain_words.csv in DIR",
+        "  mark LABEL (--level LEVEL | CSV...)  label every word of a dictionary level, or of lemma CSV files");
+
+    private static final Path DICT_DIR = Paths.get("data", "dictionary");
+    private static final Path DICT_SNAPSHOT = Paths.get("wordminer.dict");
+
+    private final Connection reader;
+    private final DbWriter dbWriter;
+    private final Map<String, DictEntry> dictionary = new HashMap<>();
+    private long dictionarySignature;
+
+    // Started on first use; list, corpus and labels never need it
+    private CompletableFuture<Lemmatizer> lemmatizer;
+
+    private final PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Deque<String> rest = new ArrayDeque<>(Arrays.asList(args));
+        String url = Database.URL;
+        if ("--db".equals(rest.peek())) {
+            rest.pop();
+            if (rest.isEmpty()) usage();
+            url = "jdbc:sqlite:" + rest.pop();
+        }
+        if (rest.isEmpty()) usage();
+        String command = rest.pop();
+
+        int status = 0;
+        WordMinerCli cli = null;
+        try {
+            cli = new WordMinerCli(url);
+            switch (command) {
+                case "import": cli.importPaths(rest); break;
+                case "list": cli.list(); break;
+                case "report": cli.report(rest); break;
+                case "corpus": cli.corpus(rest); break;
+                case "labels": cli.labels(rest); break;
+                case "mark": cli.mark(rest); break;
+                default: usage();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            status = 2;
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            if (cli != null) cli.close();
+        }
+        System.exit(status);
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    WordMinerCli(String url) throws Exception {
+        Connection writeConnection = Database.open(url);
+        Schema.create(writeConnection);
+        dbWriter = new DbWriter(writeConnection);
+        reader = Database.openReader(url);
+
+        long start = System.nanoTime();
+        dbWriter.call(c -> {
+            try {
+                DictionaryLoader loader = new DictionaryLoader(c, DICT_DIR, DICT_SNAPSHOT, null);
+                loader.load(dictionary);
+                dictionarySignature = loader.signature();
+            } catch (SQLException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException(e);
+            }
+            return null;
+        });
+        Metrics.record("startup: loadDictionary", start);
+        System.err.println("Dictionary loaded: " + dictionary.size() + " words");
+    }
+
+    private CompletableFuture<Lemmatizer> lemmatizer() {
+        if (lemmatizer == null) {
+            long start = System.nanoTime();
+            lemmatizer = CompletableFuture.supplyAsync(() -> {
+                try {
+                    Lemmatizer nlp = new LemmaCache(Lemmatizer.fromConfig(dictionary), dbWriter).load();
+                    Metrics.record("startup: initNLP", start);
+                    return nlp;
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        return lemmatizer;
+    }
+
+    /**
+     * Imports each folder as one batch and each file on its own, on this thread.
+     */
+    void importPaths(Collection<String> paths) throws Exception {
+        if (paths.isEmpty()) throw new IllegalArgumentException("import: no files or folders given");
+        ArticleImporter importer = new ArticleImporter(lemmatizer(), dictionary, dictionarySignature, dbWriter);
+
+        long start = System.nanoTime();
+        int imported = 0, skipped = 0, failed = 0;
+        long tokens = 0;
+        out.println("path\tstatus\tarticles\ttokens");
+        for (String name : paths) {
+            File path = new File(name);
+            if (path.isDirectory()) {
+                ArticleImporter.BatchImportJob job = importer.new BatchImportJob(path);
+                job.addPropertyChangeListener(e -> {
+                    if (e.getPropertyName().equals("stage")) System.err.print("\r" + e.getNewValue() + "   ");
+                });
+                job.run();
+                System.err.println();
+                try {
+                    ArticleImporter.BatchResult result = job.get();
+                    out.println(name + "\timported\t" + result.imported + "\t" + result.tokens);
+                    imported += result.imported;
+                    skipped += result.duplicates + result.empty;
+                    failed += result.failures.size();
+                    tokens += result.tokens;
+                    result.failures.forEach(f -> System.err.println("Failed: " + f));
+                } catch (ExecutionException e) {
+                    out.println(name + "\tfailed: " + e.getCause().getMessage() + "\t0\t0");
+                    failed++;
+                }
+            } else if (path.isFile()) {
+                ArticleImporter.ImportJob job = importer.new ImportJob(path);
+                job.run();
+                try {
+                    ArticleImporter.Result result = job.get();
+                    out.println(name + "\timported\t1\t" + result.tokens);
+                    imported++;
+                    tokens += result.tokens;
+                } catch (ExecutionException e) {
+                    // Empty and already imported files are reported as IllegalArgumentException
+                    boolean skip = e.getCause() instanceof IllegalArgumentException;
+                    out.println(name + "\t" + (skip ? "skipped: " : "failed: ") + e.getCause().getMessage() + "\t0\t0");
+                    if (skip) skipped++; else failed++;
+                }
+            } else {
+                out.println(name + "\tnot found\t0\t0");
+                failed++;
+            }
+            out.flush();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.err.println(String.format("Imported %d articles (%d skipped, %d failed), %d tokens in %.1f s: %.1f articles/s, %.0f tokens/s",
+            imported, skipped, failed, tokens, secs, imported / secs, tokens / secs));
+    }
+
+    void list() throws SQLException {
+        PreparedStatement ps = Database.prepare(reader,
+            "SELECT id, title, total_words, unique_words, import_date FROM articles ORDER BY id");
+        out.println("id\ttitle\ttotal_words\tunique_words\timport_date");
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                out.println(rs.getInt(1) + "\t" + rs.getString(2) + "\t" + rs.getInt(3) + "\t" + rs.getInt(4) + "\t" + rs.getString(5));
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reports from the stored histograms and the label join, like the GUI report;
+     * articles that were never indexed are analyzed once and indexed.
+     */
+    void report(Deque<String> args) throws Exception {
+        Path dir = null;
+        if ("--out".equals(args.peek())) {
+            args.pop();
+            if (args.isEmpty()) throw new IllegalArgumentException("report: --out needs a folder");
+            dir = Files.createDirectories(Paths.get(args.pop()));
+        }
+        List<Integer> ids = ids(args);
+        if (ids.isEmpty()) ids = allIds();
+
+        // Index what the stored analyses allow and bring histograms up to the current dictionary
+        dbWriter.transaction(c -> {
+            WordStats.backfill(c);
+            return ArticleStats.rescore(c, dictionary, dictionarySignature);
+        });
+
+        long start = System.nanoTime();
+        int reports = 0;
+        // Read in once, by the first article that needs indexing
+        LabelStore labels = null;
+        PreparedStatement ps = Database.prepare(reader, "SELECT title, total_words, unique_words FROM articles WHERE id=?");
+        for (int id : ids) {
+            long reportStart = Metrics.start();
+            String title;
+            int totalWords, uniqueWords;
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    System.err.println("No article " + id);
+                    continue;
+                }
+                title = rs.getString(1);
+                totalWords = rs.getInt(2);
+                uniqueWords = rs.getInt(3);
+            }
+
+            VocabularyReport report = ArticleStats.load(reader, id, dictionary, dictionarySignature);
+            if (report == null) {
+                if (labels == null) labels = new LabelStore().load(reader);
+                report = indexArticle(id, labels);
+            }
+            String text = report.format(title, totalWords, uniqueWords);
+            if (dir == null) {
+                out.println(text);
+                out.flush();
+            } else {
+                Files.writeString(dir.resolve(id + ".txt"), text, StandardCharsets.UTF_8);
+            }
+            Metrics.record("report: article", reportStart);
+            reports++;
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.err.println(String.format("%d reports in %.2f s: %.1f reports/s%s",
+            reports, secs, reports / secs, dir == null ? "" : ", written to " + dir.toAbsolutePath()));
+    }
+
+    /**
+     * Analyzes and indexes an article; the labels must be loaded, since the report counts
+     * them from LemmaIds.
+     */
+    private VocabularyReport indexArticle(int articleId, LabelStore labels) throws SQLException {
+        ArticleText content = ArticleText.load(reader, articleId);
+        if (content == null) throw new SQLException("No article " + articleId);
+
+        Lemmatizer nlp = lemmatizer().join();
+        ArticleAnalysis analysis = nlp.analyze(content.toString());
+        VocabularyReport report = VocabularyReport.compute(analysis);
+        dbWriter.transaction(c -> {
+            ArticleAnalysis.save(c, articleId, analysis);
+            WordStats.delete(c, articleId);
+            WordStats.save(c, articleId, analysis);
+            ArticleStats.save(c, articleId, report, dictionary, dictionarySignature);
+            return null;
+        });
+        return report;
+    }
+
+    /**
+     * Tab-separated lemma, articles, occurrences, label and levels, from the WordStats index.
+     */
+    void corpus(Deque<String> args) throws SQLException {
+        String label = null;
+        int limit = 100;
+        while (args.peek() != null && args.peek().startsWith("--")) {
+            String option = args.pop();
+            if (args.isEmpty()) throw new IllegalArgumentException("corpus: " + option + " needs a value");
+            switch (option) {
+                case "--label": label = args.pop().toLowerCase(); break;
+                case "--limit": limit = Integer.parseInt(args.pop()); break;
+                default: throw new IllegalArgumentException("corpus: unknown option " + option);
+            }
+        }
+        List<Integer> ids = ids(args);
+
+        int added = dbWriter.transaction(WordStats::backfill);
+        if (added > 0) System.err.println("Indexed " + added + " articles for cross-article analysis.");
+
+        long start = System.nanoTime();
+        List<WordStats.Row> rows = ids.size() > 1
+            ? WordStats.overlap(reader, ids, label, limit)
+            : WordStats.topLemmas(reader, label, limit);
+        out.println("lemma\tarticles\toccurrences\tlabel\tlevels");
+        for (WordStats.Row row : rows) {
+            DictEntry entry = dictionary.get(row.lemma);
+            out.println(row.lemma + "\t" + row.articles + "\t" + row.occurrences + "\t" + row.label + "\t"
+                + (entry == null ? "" : String.join(",", entry.levelNames())));
+        }
+        out.flush();
+        System.err.println(String.format("%d lemmas in %.1f ms", rows.size(), (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * CSV of lemma, label and date to stdout, or the GUI's three export files into a folder.
+     */
+    void labels(Deque<String> args) throws IOException, SQLException {
+        PreparedStatement ps = Database.prepare(reader, "SELECT lemma, label, date FROM user_words ORDER BY lemma");
+        if (!"--out".equals(args.peek())) {
+            out.println("lemma,label,date");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.println(rs.getString(1) + "," + rs.getString(2) + "," + rs.getString(3));
+                }
+            }
+            out.flush();
+            return;
+        }
+
+        args.pop();
+        if (args.isEmpty()) throw new IllegalArgumentException("labels: --out needs a folder");
+        Path dir = Files.createDirectories(Paths.get(args.pop()));
+        Map<String, String> userWords = userWords();
+        for (String label : new String[]{"known", "unknown", "uncertain"}) {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(dir.resolve(label + "_words.csv"), StandardCharsets.UTF_8))) {
+                pw.println("lemma");
+                for (Map.Entry<String, String> entry : userWords.entrySet()) {
+                    if (entry.getValue().equals(label)) {
+                        pw.println(entry.getKey());
+                    }
+                }
+            }
+        }
+        System.err.println("Exported " + userWords.size() + " labels to " + dir.toAbsolutePath());
+    }
+
+    /**
+     * Bulk label change in one writer transaction; prints how many lemmas changed.
+     */
+    void mark(Deque<String> args) throws IOException, SQLException {
+        String label = args.poll();
+        if (Tokens.labelIndex(label) == Tokens.UNLABELED) {
+            throw new IllegalArgumentException("mark: label must be known, unknown or uncertain");
+        }
+        if (args.isEmpty()) throw new IllegalArgumentException("mark: give --level LEVEL or CSV files");
+
+        LabelStore labels = new LabelStore().load(reader);
+        long start = System.nanoTime();
+        Map<String, String> changes = new HashMap<>();
+        if ("--level".equals(args.peek())) {
+            args.pop();
+            int level = DictEntry.levelIndex(args.poll());
+            if (level < 0) throw new IllegalArgumentException("mark: level must be one of " + String.join(", ", DictEntry.LEVELS));
+            changes.putAll(BulkLabels.level(dictionary, level, label));
+        } else {
+            for (String name : args) {
+                changes.putAll(BulkLabels.csv(Paths.get(name), label));
+            }
+        }
+        Map<Integer, Double> scores = BulkLabels.apply(dbWriter, labels, changes, dictionary);
+        out.println(changes.size() + "\t" + scores.size());
+        out.flush();
+        System.err.println(String.format("%d lemmas marked %s, %d articles rescored in %.1f ms",
+            changes.size(), label, scores.size(), (System.nanoTime() - start) / 1e6));
+    }
+
+    private Map<String, String> userWords() throws SQLException {
+        Map<String, String> userWords = new TreeMap<>();
+        try (ResultSet rs = Database.prepare(reader, "SELECT lemma, label FROM user_words").executeQuery()) {
+            while (rs.next()) {
+                userWords.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        return userWords;
+    }
+
+    private List<Integer> allIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rs = Database.prepare(reader, "SELECT id FROM articles ORDER BY id").executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(Collection<String> args) {
+        List<Integer> ids = new ArrayList<>();
+        for (String arg : args) {
+            try {
+                ids.add(Integer.parseInt(arg));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not an article id: " + arg);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Saves the lemma cache and drains queued writes.
+     */
+    void close() {
+        if (lemmatizer != null && lemmatizer.isDone() && !lemmatizer.isCompletedExceptionally()) {
+            ((LemmaCache) lemmatizer.join()).flush();
+        }
+        dbWriter.shutdown();
+        Database.close(reader);
+        String metricsFile = System.getProperty("wordminer.metricsFile");
+        if (metricsFile != null) {
+            try {
+                Metrics.dump(Paths.get(metricsFile));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
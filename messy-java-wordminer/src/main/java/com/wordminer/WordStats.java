@@ -0,0 +1,194 @@
+package com.wordminer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Inverted index of word lemmas over the library: word_stats holds (lemma, article_id, count),
+ * lemma_df the per-lemma document frequency and total count, kept in step on insert and delete
+ * so corpus-wide queries never touch article content. word_stats_articles lists the indexed
+ * articles, since an article without word lemmas has no rows to tell.
+ */
+final class WordStats {
+    private WordStats() {}
+
+    /**
+     * One lemma in a cross-article result
+     */
+    static class Row {
+        String lemma;
+        int articles;
+        int occurrences;
+        String label;
+    }
+
+    /**
+     * Indexes the word lemmas of one article; runs inside the insert transaction.
+     */
+    static void save(Connection c, int articleId, ArticleAnalysis analysis) throws SQLException {
+        // Sorted word ids; each run is one lemma and its length the count
+        int[] ids = new int[analysis.size];
+        int words = 0;
+        for (int i = 0; i < analysis.size; i++) {
+            if (analysis.ids[i] >= 0) ids[words++] = analysis.ids[i];
+        }
+        Arrays.sort(ids, 0, words);
+
+        PreparedStatement insert = Database.prepare(c, "INSERT OR REPLACE INTO word_stats (lemma, article_id, count) VALUES (?,?,?)");
+        PreparedStatement df = Database.prepare(c,
+            "INSERT INTO lemma_df (lemma, df, total) VALUES (?,1,?) "
+            + "ON CONFLICT(lemma) DO UPDATE SET df=df+1, total=total+excluded.total");
+        for (int run = 0, next; run < words; run = next) {
+            next = run + 1;
+            while (next < words && ids[next] == ids[run]) next++;
+            String lemma = LemmaIds.lemma(ids[run]);
+            insert.setString(1, lemma);
+            insert.setInt(2, articleId);
+            insert.setInt(3, next - run);
+            insert.addBatch();
+            df.setString(1, lemma);
+            df.setInt(2, next - run);
+            df.addBatch();
+        }
+        insert.executeBatch();
+        df.executeBatch();
+
+        PreparedStatement indexed = Database.prepare(c, "INSERT OR IGNORE INTO word_stats_articles (article_id) VALUES (?)");
+        indexed.setInt(1, articleId);
+        indexed.executeUpdate();
+    }
+
+    /**
+     * Removes an article from the index; runs inside the delete transaction.
+     */
+    static void delete(Connection c, int articleId) throws SQLException {
+        PreparedStatement df = Database.prepare(c,
+            "UPDATE lemma_df SET df=df-1, total=total-s.count FROM word_stats s "
+            + "WHERE s.article_id=? AND s.lemma=lemma_df.lemma");
+        df.setInt(1, articleId);
+        df.executeUpdate();
+        Database.prepare(c, "DELETE FROM lemma_df WHERE df<=0").executeUpdate();
+
+        PreparedStatement rows = Database.prepare(c, "DELETE FROM word_stats WHERE article_id=?");
+        rows.setInt(1, articleId);
+        rows.executeUpdate();
+
+        PreparedStatement indexed = Database.prepare(c, "DELETE FROM word_stats_articles WHERE article_id=?");
+        indexed.setInt(1, articleId);
+        indexed.executeUpdate();
+    }
+
+    /**
+     * Whether the article is in the index, with or without word lemmas
+     */
+    static boolean indexed(Connection c, int articleId) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "SELECT 1 FROM word_stats_articles WHERE article_id=?");
+        ps.setInt(1, articleId);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Indexes articles imported before the index existed, from their stored analysis.
+     * Returns the number of articles added.
+     */
+    static int backfill(Connection c) throws SQLException {
+        List<Integer> missing = new ArrayList<>();
+        try (ResultSet rs = Database.prepare(c,
+                "SELECT a.article_id FROM article_analysis a "
+                + "WHERE NOT EXISTS (SELECT 1 FROM word_stats_articles w WHERE w.article_id=a.article_id)").executeQuery()) {
+            while (rs.next()) {
+                missing.add(rs.getInt(1));
+            }
+        }
+
+        PreparedStatement blob = Database.prepare(c, "SELECT data FROM article_analysis WHERE article_id=?");
+        for (int articleId : missing) {
+            blob.setInt(1, articleId);
+            byte[] data;
+            try (ResultSet rs = blob.executeQuery()) {
+                if (!rs.next()) continue;
+                data = rs.getBytes(1);
+            }
+            // Any backend's analysis will do here, the stamp only matters for re-analysis
+            save(c, articleId, ArticleAnalysis.fromBytes(data, ""));
+        }
+        return missing.size();
+    }
+
+    /**
+     * LemmaIds ids of the lemmas indexed for one article
+     */
+    static BitSet lemmaIds(Connection c, int articleId) throws SQLException {
+        PreparedStatement ps = Database.prepare(c, "SELECT lemma FROM word_stats WHERE article_id=?");
+        ps.setInt(1, articleId);
+        BitSet ids = new BitSet(LemmaIds.size());
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ids.set(LemmaIds.id(rs.getString(1)));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Lemmas in the most articles, optionally only those with one label ("unlabeled" for none).
+     */
+    static List<Row> topLemmas(Connection c, String label, int limit) throws SQLException {
+        PreparedStatement ps = Database.prepare(c,
+            "SELECT d.lemma, d.df, d.total, u.label FROM lemma_df d LEFT JOIN user_words u ON u.lemma=d.lemma "
+            + "WHERE ?1 IS NULL OR COALESCE(u.label, 'unlabeled')=?1 "
+            + "ORDER BY d.df DESC, d.total DESC LIMIT ?2");
+        ps.setString(1, label);
+        ps.setInt(2, limit);
+        return rows(ps);
+    }
+
+    /**
+     * Lemmas that occur in every one of the articles, most frequent first. The ids go in as
+     * one JSON array, so a single cached statement serves every selection.
+     */
+    static List<Row> overlap(Connection c, List<Integer> articleIds, String label, int limit) throws SQLException {
+        // A lemma counts once per article, so an id listed twice must not raise the bar
+        Set<Integer> ids = new LinkedHashSet<>(articleIds);
+        StringBuilder json = new StringBuilder("[");
+        for (int id : ids) {
+            if (json.length() > 1) json.append(',');
+            json.append(id);
+        }
+        json.append(']');
+
+        // CROSS JOIN keeps the id list outermost, so only the selected articles' rows are read
+        PreparedStatement ps = Database.prepare(c,
+            "SELECT s.lemma, COUNT(*) n, SUM(s.count) total, u.label FROM json_each(?1) j "
+            + "CROSS JOIN word_stats s ON s.article_id=j.value "
+            + "LEFT JOIN user_words u ON u.lemma=s.lemma "
+            + "GROUP BY s.lemma HAVING n=?2 "
+            + "AND (?3 IS NULL OR COALESCE(u.label, 'unlabeled')=?3) "
+            + "ORDER BY total DESC LIMIT ?4");
+        ps.setString(1, json.toString());
+        ps.setInt(2, ids.size());
+        ps.setString(3, label);
+        ps.setInt(4, limit);
+        return rows(ps);
+    }
+
+    private static List<Row> rows(PreparedStatement ps) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Row row = new Row();
+                row.lemma = rs.getString(1);
+                row.articles = rs.getInt(2);
+                row.occurrences = rs.getInt(3);
+                row.label = rs.getString(4) == null ? "unlabeled" : rs.getString(4);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
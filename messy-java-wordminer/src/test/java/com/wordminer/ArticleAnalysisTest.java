@@ -0,0 +1,100 @@
+package com.wordminer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArticleAnalysisTest {
+    @TempDir
+    Path dir;
+
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        connection = Database.open("jdbc:sqlite:" + dir.resolve("test.db"));
+        Schema.create(connection);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        Database.close(connection);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        ArticleAnalysis a = new ArticleAnalysis(7, "test");
+        a.add(0, 3, "The", "the", "DT");
+        a.add(4, 8, "cats", "cat", "NNS");
+        // Begin deltas and lengths past one and two varint bytes
+        a.add(300, 304, "cats", "cat", "NNS");
+        a.add(70_000, 70_001, ".", ".", ".");
+        a.add(70_002, 70_007, "naïve", "naïve", "JJ");
+        a.add(70_008, 70_008 + 20_000, "x".repeat(20_000), "x".repeat(20_000), null);
+        a.add(Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2 + 2, "42", "42", "CD");
+
+        ArticleAnalysis b = ArticleAnalysis.fromBytes(a.toBytes(), "other");
+        assertEquals("other", b.stamp);
+        assertEquals(a.size, b.size);
+        for (int i = 0; i < a.size; i++) {
+            assertEquals(a.begins[i], b.begins[i], "begin " + i);
+            assertEquals(a.ends[i], b.ends[i], "end " + i);
+            assertEquals(a.words[i], b.words[i], "word " + i);
+            assertEquals(a.lemmas[i], b.lemmas[i], "lemma " + i);
+            assertEquals(a.tags[i] == null ? "" : a.tags[i], b.tags[i], "tag " + i);
+            assertEquals(a.ids[i], b.ids[i], "id " + i);
+        }
+        assertEquals(-1, b.ids[3]);
+        assertEquals(-1, b.ids[6]);
+        assertEquals(b.ids[1], b.ids[2]);
+    }
+
+    @Test
+    void emptyAnalysisRoundTrips() {
+        ArticleAnalysis b = ArticleAnalysis.fromBytes(new ArticleAnalysis(0, "test").toBytes(), "test");
+        assertEquals(0, b.size);
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() {
+        ArticleAnalysis once = new ArticleAnalysis(1, "test");
+        once.add(0, 5, "mouse", "mouse", "NN");
+        ArticleAnalysis often = new ArticleAnalysis(100, "test");
+        for (int i = 0; i < 100; i++) {
+            often.add(i * 6, i * 6 + 5, "mouse", "mouse", "NN");
+        }
+        // Five one-byte varints per extra token, no more strings
+        assertEquals(once.toBytes().length + 99 * 5, often.toBytes().length);
+    }
+
+    @Test
+    void otherFormatVersionIsRejected() {
+        byte[] data = new ArticleAnalysis(0, "test").toBytes();
+        data[3]++;
+        assertThrows(UncheckedIOException.class, () -> ArticleAnalysis.fromBytes(data, "test"));
+    }
+
+    @Test
+    void loadNeedsTheSameStamp() throws SQLException {
+        ArticleAnalysis a = new ArticleAnalysis(2, "corenlp;v1");
+        a.add(0, 4, "Dogs", "dog", "NNS");
+        a.add(5, 9, "bark", "bark", "VBP");
+        ArticleAnalysis.save(connection, 1, a);
+
+        ArticleAnalysis b = ArticleAnalysis.load(connection, 1, "corenlp;v1");
+        assertNotNull(b);
+        assertEquals(2, b.size);
+        assertEquals("dog", b.lemmas[0]);
+        assertEquals(5, b.begins[1]);
+        assertNull(ArticleAnalysis.load(connection, 1, "lookup;v1"));
+        assertNull(ArticleAnalysis.load(connection, 2, "corenlp;v1"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.wordminer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArticleStatsTest {
+    @TempDir
+    Path dir;
+
+    private Connection connection;
+    private final Map<String, DictEntry> dictionary = new HashMap<>();
+    private long signature = 1;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        connection = Database.open("jdbc:sqlite:" + dir.resolve("test.db"));
+        Schema.create(connection);
+
+        dictionary.put("cat", entry(0));
+        dictionary.put("mouse", entry(3));
+        dictionary.put("cheese", entry(6));
+        dictionary.put("dog", entry(1));
+        // "chase" and "house" are not in the dictionary and weigh as the last level
+
+        setLabel("cat", "known");
+        index(1, "cat", "chase", "mouse", "cat");
+        index(2, "Mouse", "eat", "cheese", "mouse", "mouse", "!");
+        index(3, "dog", "chase", "cat", "house");
+        index(4, "nothing", "here");
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        Database.close(connection);
+    }
+
+    @Test
+    void oneLabelAtATimeMatchesFullRescore() throws SQLException {
+        Map<Integer, Double> scores = change("mouse", "known");
+        assertEquals(Set.of(1, 2), scores.keySet());
+        assertMatchesRescore(scores);
+        assertMatchesRescore(change("mouse", "uncertain"));
+        assertMatchesRescore(change("cat", "unknown"));
+        assertMatchesRescore(change("chase", "known"));
+        assertMatchesRescore(change("chase", "known"));
+        assertMatchesRescore(change("cheese", "uncertain"));
+    }
+
+    @Test
+    void bulkChangesMatchFullRescore() throws SQLException {
+        Map<String, String> changes = new HashMap<>();
+        changes.put("mouse", "known");
+        changes.put("cat", "uncertain");
+        changes.put("chase", "unknown");
+        changes.put("absent", "known");
+        Map<Integer, Double> scores = BulkLabels.save(connection, changes, dictionary);
+        assertEquals(Set.of(1, 2, 3), scores.keySet());
+        assertMatchesRescore(scores);
+
+        changes.clear();
+        changes.put("mouse", "unknown");
+        changes.put("house", "known");
+        changes.put("eat", "uncertain");
+        changes.put("dog", "known");
+        assertMatchesRescore(BulkLabels.save(connection, changes, dictionary));
+    }
+
+    @Test
+    void unchangedShareTouchesNothing() throws SQLException {
+        setLabel("eat", "unknown");
+        rescore();
+        // Unlabeled and unknown both count fully
+        Map<String, String> changes = new HashMap<>();
+        changes.put("eat", "unknown");
+        assertTrue(BulkLabels.save(connection, changes, dictionary).isEmpty());
+        assertTrue(ArticleStats.labelChanged(connection, "eat", "unknown", dictionary).isEmpty());
+    }
+
+    /**
+     * The stored weights after an incremental update, and the scores it returned, must be
+     * what scoring every article from scratch gives.
+     */
+    private void assertMatchesRescore(Map<Integer, Double> returned) throws SQLException {
+        Map<Integer, double[]> incremental = weights();
+        rescore();
+        Map<Integer, double[]> full = weights();
+
+        assertEquals(full.keySet(), incremental.keySet());
+        for (int id : full.keySet()) {
+            assertEquals(full.get(id)[0], incremental.get(id)[0], 1e-9, "unknown_weight of article " + id);
+        }
+        for (Map.Entry<Integer, Double> score : returned.entrySet()) {
+            double[] w = full.get(score.getKey());
+            assertEquals(w[0] / w[1], score.getValue(), 1e-9, "score of article " + score.getKey());
+        }
+    }
+
+    private Map<Integer, Double> change(String lemma, String label) throws SQLException {
+        Map<Integer, Double> scores = ArticleStats.labelChanged(connection, lemma, label, dictionary);
+        setLabel(lemma, label);
+        return scores;
+    }
+
+    private void rescore() throws SQLException {
+        // Another signature makes every histogram stale, so every article is scored again
+        int scored = ArticleStats.rescore(connection, dictionary, ++signature);
+        assertEquals(4, scored);
+    }
+
+    private void index(int articleId, String... words) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO articles (id, title) VALUES (?, ?)")) {
+            ps.setInt(1, articleId);
+            ps.setString(2, String.join(" ", words));
+            ps.executeUpdate();
+        }
+        ArticleAnalysis analysis = WordStatsTest.analysis(words);
+        WordStats.save(connection, articleId, analysis);
+        ArticleStats.save(connection, articleId, new VocabularyReport(), dictionary, signature);
+    }
+
+    private void setLabel(String lemma, String label) throws SQLException {
+        PreparedStatement ps = Database.prepare(connection, "INSERT OR REPLACE INTO user_words (lemma, label, date) VALUES (?,?,'')");
+        ps.setString(1, lemma);
+        ps.setString(2, label);
+        ps.executeUpdate();
+    }
+
+    private Map<Integer, double[]> weights() throws SQLException {
+        Map<Integer, double[]> weights = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT article_id, unknown_weight, word_tokens FROM article_stats")) {
+            while (rs.next()) {
+                weights.put(rs.getInt(1), new double[]{rs.getDouble(2), rs.getInt(3)});
+            }
+        }
+        return weights;
+    }
+
+    private static DictEntry entry(int level) {
+        DictEntry entry = new DictEntry();
+        entry.levels = (byte) (1 << level);
+        return entry;
+    }
+}
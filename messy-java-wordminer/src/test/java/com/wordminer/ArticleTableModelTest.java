@@ -0,0 +1,133 @@
+package com.wordminer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArticleTableModelTest {
+    @TempDir
+    Path dir;
+
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        connection = Database.open("jdbc:sqlite:" + dir.resolve("test.db"));
+        Schema.create(connection);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        Database.close(connection);
+    }
+
+    @Test
+    void unscoredArticlesHaveNoDifficulty() throws SQLException {
+        int scored = insertArticle("scored");
+        int noStats = insertArticle("no stats row");
+        int noWeight = insertArticle("no weight yet");
+        insertStats(scored, 25.0);
+        insertStats(noWeight, null);
+
+        ArticleTableModel model = new ArticleTableModel(connection);
+        model.reload();
+        assertEquals(3, model.getRowCount());
+
+        assertEquals(0.25, (Double) difficultyOf(model, scored), 1e-9);
+        assertNull(difficultyOf(model, noStats));
+        assertNull(difficultyOf(model, noWeight));
+    }
+
+    @Test
+    void unscoredArticlesDoNotSortAsEasiest() throws SQLException {
+        int easy = insertArticle("easy");
+        int unscored = insertArticle("unscored");
+        int hard = insertArticle("hard");
+        int noWeight = insertArticle("no weight yet");
+        insertStats(easy, 10.0);
+        insertStats(hard, 60.0);
+        insertStats(noWeight, null);
+
+        ArticleTableModel model = new ArticleTableModel(connection);
+        model.reload();
+        model.sortBy(ArticleTableModel.DIFFICULTY);
+        model.sortBy(ArticleTableModel.DIFFICULTY);
+        assertTrue(model.ascending());
+
+        assertEquals(easy, model.idAt(0));
+        assertEquals(hard, model.idAt(1));
+        assertUnscoredLast(model, unscored, noWeight);
+    }
+
+    @Test
+    void unscoredArticlesSortLastDescending() throws SQLException {
+        int easy = insertArticle("easy");
+        int unscored = insertArticle("unscored");
+        int hard = insertArticle("hard");
+        int noWeight = insertArticle("no weight yet");
+        insertStats(easy, 10.0);
+        insertStats(hard, 60.0);
+        insertStats(noWeight, null);
+
+        ArticleTableModel model = new ArticleTableModel(connection);
+        model.reload();
+        model.sortBy(ArticleTableModel.DIFFICULTY);
+        assertFalse(model.ascending());
+
+        assertEquals(hard, model.idAt(0));
+        assertEquals(easy, model.idAt(1));
+        assertUnscoredLast(model, unscored, noWeight);
+    }
+
+    private void assertUnscoredLast(ArticleTableModel model, int unscored, int noWeight) {
+        assertEquals(4, model.getRowCount());
+        for (int row = 2; row < 4; row++) {
+            int id = model.idAt(row);
+            assertTrue(id == unscored || id == noWeight, "row " + row + " is unscored");
+            assertNull(model.getValueAt(row, ArticleTableModel.DIFFICULTY));
+        }
+    }
+
+    private Object difficultyOf(ArticleTableModel model, int articleId) {
+        int row = model.rowOf(articleId, 0);
+        assertTrue(row >= 0, "article " + articleId + " is listed");
+        return model.getValueAt(row, ArticleTableModel.DIFFICULTY);
+    }
+
+    private int insertArticle(String title) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO articles (title, total_words, unique_words, import_date, content_hash) VALUES (?, 100, 50, '2024-01-01T00:00', ?)")) {
+            ps.setString(1, title);
+            ps.setString(2, title);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private void insertStats(int articleId, Double unknownWeight) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO article_stats (article_id, dict_signature, level_counts, not_in_dict, unknown_weight, word_tokens) "
+                + "VALUES (?, 0, '', 0, ?, 100)")) {
+            ps.setInt(1, articleId);
+            if (unknownWeight == null) {
+                ps.setNull(2, Types.REAL);
+            } else {
+                ps.setDouble(2, unknownWeight);
+            }
+            ps.executeUpdate();
+        }
+    }
+}
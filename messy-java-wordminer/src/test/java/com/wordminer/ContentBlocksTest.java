@@ -0,0 +1,183 @@
+package com.wordminer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentBlocksTest {
+    private static final int B = ContentBlocks.BLOCK_CHARS;
+
+    @TempDir
+    Path dir;
+
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        connection = Database.open("jdbc:sqlite:" + dir.resolve("test.db"));
+        Schema.create(connection);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        Database.close(connection);
+    }
+
+    @Test
+    void blocksRoundTrip() throws Exception {
+        String text = sampleText();
+        ContentBlocks content = ContentBlocks.read(write(text));
+        assertFalse(content.isBlank());
+        assertEquals(text.length(), content.length());
+        assertEquals(text, content.text().toString());
+        assertEquals(ArticleImporter.contentHash(text), content.hash());
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, content.plainBytes());
+        assertTrue(content.compressedBytes() < content.plainBytes());
+        content.dropText();
+        assertNull(content.text());
+
+        content.save(connection, 1);
+        ArticleText stored = ArticleText.load(connection, 1);
+        assertTrue(stored.isBlocked());
+        assertEquals(text.length(), stored.length());
+        assertEquals(text, stored.toString());
+    }
+
+    @Test
+    void blocksEndWhereTheyMay() throws Exception {
+        String text = sampleText();
+        ContentBlocks content = ContentBlocks.read(write(text));
+        content.save(connection, 1);
+
+        List<int[]> blocks = blocks(1);
+        assertEquals(content.blockCount(), blocks.size());
+        assertTrue(blocks.size() > 5);
+        boolean paragraph = false, space = false, forced = false;
+        int next = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            int start = blocks.get(i)[0], chars = blocks.get(i)[1];
+            assertEquals(next, start, "block " + i + " follows the one before");
+            next = start + chars;
+            if (i == blocks.size() - 1) break;
+
+            char last = text.charAt(next - 1);
+            assertTrue(chars >= B, "block " + i + " is at least the target length");
+            assertTrue(last == '\n'
+                || (chars >= B + B / 2 && Character.isWhitespace(last))
+                || chars >= 2 * B, "block " + i + " ends at a break, or runs long");
+            assertFalse(Character.isHighSurrogate(last), "block " + i + " keeps its surrogate pair");
+            if (last == '\n') paragraph = true;
+            else if (Character.isWhitespace(last)) space = true;
+            else forced = true;
+        }
+        assertEquals(text.length(), next);
+        assertTrue(paragraph && space && forced, "the sample text ends blocks every way");
+    }
+
+    @Test
+    void forcedCutWaitsForTheLowSurrogate() throws Exception {
+        // Without whitespace the cut falls at 2 * B chars, here on the high half of a pair
+        String text = "x".repeat(2 * B - 1) + "😀" + "y".repeat(10);
+        ContentBlocks content = ContentBlocks.read(write(text));
+        content.save(connection, 1);
+
+        List<int[]> blocks = blocks(1);
+        assertEquals(2, blocks.size());
+        assertEquals(2 * B + 1, blocks.get(0)[1]);
+        assertEquals(text, ArticleText.load(connection, 1).toString());
+    }
+
+    @Test
+    void rangesInflateOnlyTheirBlocks() throws Exception {
+        String text = sampleText();
+        ContentBlocks.read(write(text)).save(connection, 1);
+        List<int[]> blocks = blocks(1);
+
+        ArticleText stored = ArticleText.load(connection, 1);
+        int start = blocks.get(2)[0];
+        assertEquals(text.substring(start, start + 10), stored.subSequence(start, start + 10).toString());
+        assertEquals(1, stored.inflated());
+
+        // Across a boundary: the last char of block 2 and the first of block 3
+        int boundary = blocks.get(3)[0];
+        assertEquals(text.substring(boundary - 5, boundary + 5), stored.subSequence(boundary - 5, boundary + 5).toString());
+        assertEquals(text.charAt(boundary - 1), stored.charAt(boundary - 1));
+        assertEquals(text.charAt(boundary), stored.charAt(boundary));
+        assertEquals(2, stored.inflated());
+    }
+
+    @Test
+    void shortAndBlankFiles() throws Exception {
+        ContentBlocks small = ContentBlocks.read(write("One line, no newline"));
+        assertEquals(1, small.blockCount());
+        assertEquals("One line, no newline", small.text().toString());
+
+        assertTrue(ContentBlocks.read(write(" \n\t\n")).isBlank());
+
+        ContentBlocks empty = ContentBlocks.read(write(""));
+        assertTrue(empty.isBlank());
+        assertEquals(0, empty.length());
+        assertEquals(ArticleImporter.contentHash(""), empty.hash());
+        empty.save(connection, 2);
+        assertEquals("", ArticleText.load(connection, 2).toString());
+    }
+
+    @Test
+    void malformedInputFails() throws Exception {
+        Path file = dir.resolve("bad.txt");
+        Files.write(file, new byte[]{'a', 'b', (byte) 0xC3, '(', 'c'});
+        assertThrows(IOException.class, () -> ContentBlocks.read(file));
+    }
+
+    /**
+     * Paragraphs, then one long line of words, then a long run without whitespace made of
+     * surrogate pairs, and a tail without a newline; every kind of block end is needed.
+     */
+    private static String sampleText() {
+        StringBuilder text = new StringBuilder();
+        for (int p = 0; text.length() < 5 * B; p++) {
+            text.append("Paragraph ").append(p).append(" about Zürich, ");
+            text.append("word ".repeat(200 + p * 37 % 500)).append('\n');
+        }
+        for (int w = 0; w < 3 * B / 6; w++) {
+            text.append("words ");
+        }
+        text.append("😀".repeat(3 * B));
+        text.append("\nThe end, without a newline");
+        return text.toString();
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = Files.createTempFile(dir, "article", ".txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private List<int[]> blocks(int articleId) throws SQLException {
+        List<int[]> blocks = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT char_start, chars FROM article_blocks WHERE article_id=? ORDER BY block")) {
+            ps.setInt(1, articleId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    blocks.add(new int[]{rs.getInt(1), rs.getInt(2)});
+                }
+            }
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,127 @@
+package com.wordminer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictionarySnapshotTest {
+    private static final String[] WORDS = {"abandon", "café", "naïveté", "x"};
+    private static final int[] LEVELS = {0x01, 0x7F, 0x40, 0x00};
+    private static final String[] DATA = {"{\"word\":\"abandon\",\"pos\":\"v\"}", "{\"word\":\"café\",\"zh\":\"咖啡馆\"}", "", "{}"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenEntriesReadBack() throws IOException {
+        Path path = dir.resolve("dict.snapshot");
+        write(path, 42);
+
+        DictionarySnapshot snapshot = DictionarySnapshot.open(path, 42);
+        assertNotNull(snapshot);
+        assertEquals(WORDS.length, snapshot.size());
+        for (int i = 0; i < WORDS.length; i++) {
+            assertEquals(WORDS[i], snapshot.word(i));
+            assertEquals(LEVELS[i], snapshot.levels(i));
+            assertEquals(DATA[i], snapshot.data(i));
+        }
+    }
+
+    @Test
+    void headerAndRecordLayout() throws IOException {
+        Path path = dir.resolve("dict.snapshot");
+        write(path, 0x1234_5678_9ABCL);
+
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+        assertEquals(0x574D4453, file.getInt(0));
+        assertEquals(0x1234_5678_9ABCL, file.getLong(8));
+        assertEquals(WORDS.length, file.getInt(16));
+
+        // Records of word offset/length, data offset/length and levels, then the pool
+        int header = 20, record = 20, pool = header + WORDS.length * record;
+        int offset = 0;
+        for (int i = 0; i < WORDS.length; i++) {
+            int r = header + i * record;
+            byte[] word = WORDS[i].getBytes(StandardCharsets.UTF_8);
+            byte[] data = DATA[i].getBytes(StandardCharsets.UTF_8);
+            assertEquals(offset, file.getInt(r));
+            assertEquals(word.length, file.getInt(r + 4));
+            assertEquals(offset + word.length, file.getInt(r + 8));
+            assertEquals(data.length, file.getInt(r + 12));
+            assertEquals(LEVELS[i], file.getInt(r + 16));
+            assertArrayEquals(word, Arrays.copyOfRange(file.array(), pool + offset, pool + offset + word.length));
+            offset += word.length + data.length;
+        }
+        assertEquals(pool + offset, file.capacity());
+    }
+
+    @Test
+    void otherFilesAreNotOpened() throws IOException {
+        Path path = dir.resolve("dict.snapshot");
+        assertNull(DictionarySnapshot.open(path, 42));
+
+        write(path, 42);
+        assertNull(DictionarySnapshot.open(path, 43));
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, 12));
+        assertNull(DictionarySnapshot.open(path, 42));
+
+        bytes[0] ^= 1;
+        Files.write(path, bytes);
+        assertNull(DictionarySnapshot.open(path, 42));
+    }
+
+    @Test
+    void uncommittedWriteLeavesTheOldSnapshot() throws IOException {
+        Path path = dir.resolve("dict.snapshot");
+        write(path, 1);
+        byte[] before = Files.readAllBytes(path);
+
+        try (DictionarySnapshot.Writer writer = new DictionarySnapshot.Writer(path, 2)) {
+            writer.add("half", 1, "{}");
+        }
+        assertArrayEquals(before, Files.readAllBytes(path));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count(), "no temp files left");
+        }
+
+        // A stale snapshot that is open can be replaced
+        assertNotNull(DictionarySnapshot.open(path, 1));
+        write(path, 2);
+        assertNotNull(DictionarySnapshot.open(path, 2));
+    }
+
+    @Test
+    void fillLoadsLevelsAndPayloads() throws IOException {
+        Path path = dir.resolve("dict.snapshot");
+        write(path, 7);
+
+        Map<String, DictEntry> dictionary = new HashMap<>();
+        DictionaryLoader.fill(DictionarySnapshot.open(path, 7), dictionary);
+        assertEquals(WORDS.length, dictionary.size());
+        assertTrue(dictionary.get("café").hasLevel(DictEntry.LEVELS.length - 1));
+        assertEquals(DictEntry.LEVELS.length, dictionary.get("café").levelNames().size());
+        assertEquals("咖啡馆", dictionary.get("café").data().get("zh"));
+        assertTrue(dictionary.get("x").levelNames().isEmpty());
+    }
+
+    private static void write(Path path, long signature) throws IOException {
+        try (DictionarySnapshot.Writer writer = new DictionarySnapshot.Writer(path, signature)) {
+            for (int i = 0; i < WORDS.length; i++) {
+                writer.add(WORDS[i], LEVELS[i], DATA[i]);
+            }
+            writer.commit();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.wordminer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordStatsTest {
+    @TempDir
+    Path dir;
+
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        connection = Database.open("jdbc:sqlite:" + dir.resolve("test.db"));
+        Schema.create(connection);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        Database.close(connection);
+    }
+
+    @Test
+    void articlesWithoutWordsAreIndexedOnce() throws SQLException {
+        ArticleAnalysis words = analysis("cats", "chase", "mice");
+        ArticleAnalysis noWords = analysis("1984", "!");
+        ArticleAnalysis.save(connection, 1, words);
+        ArticleAnalysis.save(connection, 2, noWords);
+
+        assertEquals(2, WordStats.backfill(connection));
+        assertTrue(WordStats.indexed(connection, 2));
+        assertEquals(0, WordStats.backfill(connection));
+
+        // Indexed with nothing to count: an empty report, not "index me first"
+        VocabularyReport report = ArticleStats.load(connection, 2, new HashMap<>(), 0);
+        assertNotNull(report);
+        assertEquals(0, report.labelCounts[Tokens.UNLABELED]);
+
+        WordStats.delete(connection, 2);
+        assertFalse(WordStats.indexed(connection, 2));
+        assertNull(ArticleStats.load(connection, 2, new HashMap<>(), 0));
+    }
+
+    @Test
+    void overlapIgnoresRepeatedIds() throws SQLException {
+        WordStats.save(connection, 1, analysis("cats", "chase", "mice"));
+        WordStats.save(connection, 2, analysis("mice", "chase", "cheese", "mice"));
+        WordStats.save(connection, 3, analysis("dogs", "chase", "cats"));
+
+        List<WordStats.Row> rows = WordStats.overlap(connection, List.of(1, 2, 2, 1), null, 10);
+        assertEquals(List.of("mice", "chase"), lemmas(rows));
+        assertEquals(2, rows.get(0).articles);
+        assertEquals(3, rows.get(0).occurrences);
+
+        // Same statement for another selection size
+        assertEquals(List.of("chase"), lemmas(WordStats.overlap(connection, List.of(1, 2, 3), null, 10)));
+        assertEquals(List.of("chase"), lemmas(WordStats.overlap(connection, List.of(3, 2), "unlabeled", 10)));
+        assertEquals(List.of(), lemmas(WordStats.overlap(connection, List.of(3, 2), "known", 10)));
+    }
+
+    private static List<String> lemmas(List<WordStats.Row> rows) {
+        List<String> lemmas = new ArrayList<>();
+        for (WordStats.Row row : rows) {
+            lemmas.add(row.lemma);
+        }
+        return lemmas;
+    }
+
+    static ArticleAnalysis analysis(String... tokens) {
+        ArticleAnalysis a = new ArticleAnalysis(tokens.length, "test");
+        int begin = 0;
+        for (String token : tokens) {
+            a.add(begin, begin + token.length(), token, Tokens.lemma(token), "NN");
+            begin += token.length() + 1;
+        }
+        return a;
+    }
+}